@@ -64,7 +64,7 @@ public class BootstrapClassLoaderUtil extends ClassUtilCore {
 
     UrlClassLoader.Builder builder =
             UrlClassLoader.build().urls(filterClassPath(new ArrayList<URL>(classpath))).allowLock().usePersistentClasspathIndexForLocalClassDirectories()
-                    .useCache();
+                    .usePersistentClasspathIndexForJars(PathManager.getClasspathIndexRoot()).useCache();
     if (Boolean.valueOf(System.getProperty(PROPERTY_ALLOW_BOOTSTRAP_RESOURCES, "true"))) {
       builder.allowBootstrapResources();
     }
@@ -27,6 +27,7 @@ import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.RangeMarker;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Segment;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiDocumentManager;
@@ -39,13 +40,17 @@ import org.jetbrains.annotations.TestOnly;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 public class FileStatusMap implements Disposable {
   private static final Logger LOG = Logger.getInstance("#com.intellij.codeInsight.daemon.impl.FileStatusMap");
+  // more separately changed regions than that are not worth tracking, the bounding dirty scope is processed instead
+  private static final int MAX_DIRTY_REGIONS = 8;
   public static final String CHANGES_NOT_ALLOWED_DURING_HIGHLIGHTING =
           "PSI/document/model changes are not allowed during highlighting";
   private final Project myProject;
@@ -81,6 +86,16 @@ public class FileStatusMap implements Disposable {
     return documentRange.intersection(dirtyScope);
   }
 
+  /**
+   * @return disjoint sorted ranges (usually code blocks) which make up the {@link #getDirtyTextRange dirty scope},
+   * or null if the dirty scope can't be split and has to be processed as a whole
+   */
+  @Nullable
+  public static List<TextRange> getDirtyTextRanges(@Nonnull Editor editor, int passId) {
+    FileStatusMap me = DaemonCodeAnalyzerEx.getInstanceEx(editor.getProject()).getFileStatusMap();
+    return me.getFileDirtyRegions(editor.getDocument(), passId);
+  }
+
   public void setErrorFoundFlag(@Nonnull Project project, @Nonnull Document document, boolean errorFound) {
     //GHP has found error. Flag is used by ExternalToolPass to decide whether to run or not
     synchronized(myDocumentToStatusMap) {
@@ -106,6 +121,8 @@ public class FileStatusMap implements Disposable {
     private boolean wolfPassFinished;
     // if contains the special value "WHOLE_FILE_MARKER" then the corresponding range is (0, document length)
     private final TIntObjectHashMap<RangeMarker> dirtyScopes = new TIntObjectHashMap<>();
+    // separate regions the dirty scope of the pass was combined from; absent if the scope is whole file or too fragmented to be split
+    private final TIntObjectHashMap<List<RangeMarker>> dirtyRegions = new TIntObjectHashMap<>();
     private boolean errorFound;
 
     private FileStatus(@Nonnull Project project) {
@@ -131,13 +148,74 @@ public class FileStatusMap implements Disposable {
     }
 
     private void combineScopesWith(@Nonnull final TextRange scope, final int fileLength, @Nonnull final Document document) {
-      dirtyScopes.transformValues(oldScope -> {
+      for (int passId : dirtyScopes.keys()) {
+        RangeMarker oldScope = dirtyScopes.get(passId);
         RangeMarker newScope = combineScopes(oldScope, scope, fileLength, document);
         if (newScope != oldScope && oldScope != null) {
           oldScope.dispose();
         }
-        return newScope;
-      });
+        dirtyScopes.put(passId, newScope);
+        combineRegionsWith(passId, oldScope == null, newScope, scope, fileLength, document);
+      }
+    }
+
+    private void combineRegionsWith(int passId,
+                                    boolean wasClean,
+                                    @Nonnull RangeMarker newScope,
+                                    @Nonnull TextRange scope,
+                                    int fileLength,
+                                    @Nonnull Document document) {
+      List<RangeMarker> regions = dirtyRegions.get(passId);
+      TextRange region = scope.intersection(new TextRange(0, fileLength));
+      if (newScope == WHOLE_FILE_DIRTY_MARKER || region == null || !wasClean && regions == null) {
+        disposeRegions(passId);
+        return;
+      }
+      if (wasClean) {
+        disposeRegions(passId);
+        regions = new ArrayList<>();
+        dirtyRegions.put(passId, regions);
+      }
+      for (RangeMarker marker : regions) {
+        if (marker.isValid() && TextRange.create(marker).contains(region)) return;
+      }
+      if (regions.size() >= MAX_DIRTY_REGIONS) {
+        disposeRegions(passId);
+        return;
+      }
+      regions.add(document.createRangeMarker(region));
+    }
+
+    private void disposeRegions(int passId) {
+      List<RangeMarker> regions = dirtyRegions.remove(passId);
+      if (regions != null) {
+        for (RangeMarker marker : regions) {
+          marker.dispose();
+        }
+      }
+    }
+
+    @Nullable
+    private List<TextRange> getRegions(int passId) {
+      List<RangeMarker> regions = dirtyRegions.get(passId);
+      if (regions == null) return null;
+      List<TextRange> ranges = new ArrayList<>(regions.size());
+      for (RangeMarker marker : regions) {
+        if (!marker.isValid()) return null;
+        ranges.add(TextRange.create(marker));
+      }
+      ranges.sort(Segment.BY_START_OFFSET_THEN_END_OFFSET);
+      List<TextRange> merged = new ArrayList<>(ranges.size());
+      for (TextRange range : ranges) {
+        int last = merged.size() - 1;
+        if (last >= 0 && merged.get(last).getEndOffset() >= range.getStartOffset()) {
+          merged.set(last, merged.get(last).union(range));
+        }
+        else {
+          merged.add(range);
+        }
+      }
+      return merged;
     }
 
     @Override
@@ -156,6 +234,7 @@ public class FileStatusMap implements Disposable {
     }
 
     private void setDirtyScope(int passId, RangeMarker scope) {
+      disposeRegions(passId);
       RangeMarker marker = dirtyScopes.get(passId);
       if (marker != scope) {
         if (marker != null) {
@@ -220,6 +299,19 @@ public class FileStatusMap implements Disposable {
     }
   }
 
+  /**
+   * @return disjoint sorted ranges the {@link #getFileDirtyScope dirty scope} was combined from,
+   * or null if the file was marked dirty defensively or as a whole, or too many separate regions were changed
+   */
+  @Nullable
+  List<TextRange> getFileDirtyRegions(@Nonnull Document document, int passId) {
+    synchronized (myDocumentToStatusMap) {
+      FileStatus status = myDocumentToStatusMap.get(document);
+      if (status == null || status.defensivelyMarked) return null;
+      return status.getRegions(passId);
+    }
+  }
+
   void markFileScopeDirtyDefensively(@Nonnull PsiFile file, @Nonnull @NonNls Object reason) {
     assertAllowModifications();
     log("Mark dirty file defensively: ",file.getName(),reason);
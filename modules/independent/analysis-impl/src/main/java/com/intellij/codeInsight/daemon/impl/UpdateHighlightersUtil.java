@@ -137,6 +137,32 @@ public class UpdateHighlightersUtil {
     setHighlightersInRange(project, document, range, colorsScheme, new ArrayList<>(highlights), (MarkupModelEx)markup, group);
   }
 
+  // same as above for several disjoint ranges; highlighters in between the ranges are left intact
+  static void setHighlightersToEditor(@Nonnull Project project,
+                                      @Nonnull Document document,
+                                      @Nonnull List<TextRange> ranges,
+                                      @Nonnull Collection<HighlightInfo> highlights,
+                                      @Nullable final EditorColorsScheme colorsScheme, // if null global scheme will be used
+                                      int group) {
+    ApplicationManager.getApplication().assertIsDispatchThread();
+
+    PsiFile psiFile = PsiDocumentManager.getInstance(project).getPsiFile(document);
+    final DaemonCodeAnalyzerEx codeAnalyzer = DaemonCodeAnalyzerEx.getInstanceEx(project);
+    codeAnalyzer.cleanFileLevelHighlights(project, group, psiFile);
+
+    MarkupModelEx markup = (MarkupModelEx)DocumentMarkupModel.forDocument(document, project, true);
+    assertMarkupConsistent(markup, project);
+
+    // file level highlights are not bound to any range, add them once
+    List<HighlightInfo> rangeInfos = ContainerUtil.filter(highlights, info -> !info.isFileLevelAnnotation());
+    markup.runInBulkUpdate(() -> {
+      for (int i = 0; i < ranges.size(); i++) {
+        List<HighlightInfo> infos = new ArrayList<>(i == 0 ? highlights : rangeInfos);
+        setHighlightersInRange(project, document, ranges.get(i), colorsScheme, infos, markup, group);
+      }
+    });
+  }
+
   @Deprecated //for teamcity
   public static void setHighlightersToEditor(@Nonnull Project project,
                                              @Nonnull Document document,
@@ -165,9 +191,23 @@ public class UpdateHighlightersUtil {
       codeAnalyzer.cleanFileLevelHighlights(project, group, psiFile);
     }
 
-    final MarkupModel markup = DocumentMarkupModel.forDocument(document, project, true);
+    final MarkupModelEx markup = (MarkupModelEx)DocumentMarkupModel.forDocument(document, project, true);
     assertMarkupConsistent(markup, project);
 
+    markup.runInBulkUpdate(() -> doSetHighlightersOutsideRange(project, document, psiFile, infos, colorsScheme, startOffset, endOffset, priorityRange, group, markup));
+  }
+
+  private static void doSetHighlightersOutsideRange(@Nonnull Project project,
+                                                    @Nonnull Document document,
+                                                    @Nonnull PsiFile psiFile,
+                                                    @Nonnull List<HighlightInfo> infos,
+                                                    @Nullable EditorColorsScheme colorsScheme,
+                                                    int startOffset,
+                                                    int endOffset,
+                                                    @Nonnull ProperTextRange priorityRange,
+                                                    int group,
+                                                    @Nonnull MarkupModelEx markup) {
+    final DaemonCodeAnalyzerEx codeAnalyzer = DaemonCodeAnalyzerEx.getInstanceEx(project);
     final SeverityRegistrar severityRegistrar = SeverityRegistrar.getSeverityRegistrar(project);
     final HighlightersRecycler infosToRemove = new HighlightersRecycler();
     ContainerUtil.quickSort(infos, BY_START_OFFSET_NODUPS);
@@ -208,7 +248,7 @@ public class UpdateHighlightersUtil {
         return true;
       }
       if (info.getStartOffset() < priorityRange.getStartOffset() || info.getEndOffset() > priorityRange.getEndOffset()) {
-        createOrReuseHighlighterFor(info, colorsScheme, document, group, psiFile, (MarkupModelEx)markup, infosToRemove,
+        createOrReuseHighlighterFor(info, colorsScheme, document, group, psiFile, markup, infosToRemove,
                                     ranges2markersCache, severityRegistrar);
         changed[0] = true;
       }
@@ -234,6 +274,17 @@ public class UpdateHighlightersUtil {
                                      final int group) {
     ApplicationManager.getApplication().assertIsDispatchThread();
 
+    // all removals and additions below are repainted (gutter, error stripe, editor) once, when the bulk update finishes
+    markup.runInBulkUpdate(() -> doSetHighlightersInRange(project, document, range, colorsScheme, infos, markup, group));
+  }
+
+  private static void doSetHighlightersInRange(@Nonnull Project project,
+                                               @Nonnull Document document,
+                                               @Nonnull TextRange range,
+                                               @Nullable EditorColorsScheme colorsScheme,
+                                               @Nonnull List<HighlightInfo> infos,
+                                               @Nonnull MarkupModelEx markup,
+                                               int group) {
     final SeverityRegistrar severityRegistrar = SeverityRegistrar.getSeverityRegistrar(project);
     final HighlightersRecycler infosToRemove = new HighlightersRecycler();
     DaemonCodeAnalyzerEx.processHighlights(document, project, null, range.getStartOffset(), range.getEndOffset(), info -> {
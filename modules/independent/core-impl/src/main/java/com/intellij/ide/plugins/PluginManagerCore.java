@@ -30,6 +30,7 @@ import com.intellij.openapi.util.*;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.ExceptionUtil;
 import com.intellij.util.Function;
 import com.intellij.util.ReflectionUtil;
 import com.intellij.util.SmartList;
@@ -53,6 +54,9 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLDecoder;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -83,6 +87,7 @@ public class PluginManagerCore {
   static List<String> ourDisabledPlugins = null;
   static IdeaPluginDescriptor[] ourPlugins;
   static List<String> ourPluginErrors = null;
+  private static final Object ourPluginErrorsLock = new Object();
   static List<String> myPlugins2Disable = null;
   static LinkedHashSet<String> myPlugins2Enable = null;
   public static String BUILD_NUMBER;
@@ -395,11 +400,14 @@ public class PluginManagerCore {
 
   static void prepareLoadingPluginsErrorMessage(final List<String> problems) {
     if (!ApplicationManager.getApplication().isHeadlessEnvironment() && !ApplicationManager.getApplication().isUnitTestMode()) {
-      if (ourPluginErrors == null) {
-        ourPluginErrors = new ArrayList<>(problems);
-      }
-      else {
-        ourPluginErrors.addAll(problems);
+      // descriptors are loaded concurrently
+      synchronized (ourPluginErrorsLock) {
+        if (ourPluginErrors == null) {
+          ourPluginErrors = new ArrayList<>(problems);
+        }
+        else {
+          ourPluginErrors.addAll(problems);
+        }
       }
     }
     else {
@@ -604,8 +612,13 @@ public class PluginManagerCore {
     final File[] files = pluginsHome.listFiles();
     if (files != null) {
       int i = result.size();
+      // descriptors are parsed in parallel but merged in the directory order, so the result doesn't depend on the timing
+      List<CompletableFuture<IdeaPluginDescriptorImpl>> futures = new ArrayList<>(files.length);
       for (File file : files) {
-        final IdeaPluginDescriptorImpl descriptor = loadDescriptor(file, PLUGIN_XML);
+        futures.add(CompletableFuture.supplyAsync(() -> loadDescriptor(file, PLUGIN_XML), ForkJoinPool.commonPool()));
+      }
+      for (CompletableFuture<IdeaPluginDescriptorImpl> future : futures) {
+        final IdeaPluginDescriptorImpl descriptor = joinDescriptor(future);
         if (descriptor == null) continue;
         if (progress != null) {
           progress.showProgress(descriptor.getName(), PLUGINS_PROGRESS_MAX_VALUE * ((float)++i / pluginsCount));
@@ -624,6 +637,17 @@ public class PluginManagerCore {
     }
   }
 
+  @Nullable
+  private static IdeaPluginDescriptorImpl joinDescriptor(@Nonnull CompletableFuture<IdeaPluginDescriptorImpl> future) {
+    try {
+      return future.join();
+    }
+    catch (CompletionException e) {
+      ExceptionUtil.rethrowUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
   @Nullable
   static String filterBadPlugins(List<? extends IdeaPluginDescriptor> result, final Map<String, String> disabledPluginNames) {
     final Map<PluginId, IdeaPluginDescriptor> idToDescriptorMap = new HashMap<>();
@@ -17,6 +17,7 @@ package com.intellij.ide.plugins.cl;
 
 import com.intellij.diagnostic.PluginException;
 import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.extensions.PluginId;
 import com.intellij.util.containers.ContainerUtil;
@@ -43,7 +44,7 @@ public class PluginClassLoader extends UrlClassLoader {
   private final List<String> myLibDirectories;
 
   public PluginClassLoader(@Nonnull List<URL> urls, @Nonnull ClassLoader[] parents, PluginId pluginId, String version, File pluginRoot) {
-    super(build().urls(urls).allowLock().useCache());
+    super(build().urls(urls).allowLock().useCache().usePersistentClasspathIndexForJars(PathManager.getClasspathIndexRoot()));
     myParents = parents;
     myPluginId = pluginId;
     myPluginVersion = version;
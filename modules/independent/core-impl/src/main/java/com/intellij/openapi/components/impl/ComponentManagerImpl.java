@@ -32,6 +32,8 @@ import com.intellij.openapi.util.UserDataHolderBase;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.IncorrectOperationException;
 import com.intellij.util.ReflectionUtil;
+import com.intellij.util.SystemProperties;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.messages.MessageBus;
 import com.intellij.util.messages.MessageBusFactory;
@@ -46,15 +48,19 @@ import org.jetbrains.annotations.TestOnly;
 import org.picocontainer.*;
 
 import java.lang.reflect.Array;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author mike
  */
 public abstract class ComponentManagerImpl extends UserDataHolderBase implements ComponentManagerEx, Disposable {
   private static final Logger LOG = Logger.getInstance("#com.intellij.components.ComponentManager");
+  private static final boolean PRELOAD_COMPONENT_CLASSES = SystemProperties.getBooleanProperty("idea.preload.component.classes", true);
+  // configs are shared by all projects and modules, their classes need to be preloaded only once
+  private static final Set<ComponentConfig> ourPreloadedConfigs = Collections.newSetFromMap(ContainerUtil.createConcurrentWeakMap());
+  private static final ExecutorService ourClassPreloader =
+          AppExecutorUtil.createBoundedApplicationPoolExecutor("Component Class Preloader", Runtime.getRuntime().availableProcessors());
 
   private final Map<Class, Object> myInitializedComponents = ContainerUtil.newConcurrentMap();
 
@@ -68,7 +74,7 @@ public abstract class ComponentManagerImpl extends UserDataHolderBase implements
 
   private final ComponentManagerConfigurator myConfigurator = new ComponentManagerConfigurator(this);
   private final ComponentManager myParentComponentManager;
-  private ComponentsRegistry myComponentsRegistry = new ComponentsRegistry();
+  private volatile ComponentsRegistry myComponentsRegistry = new ComponentsRegistry();
   private final Condition myDisposedCondition = new Condition() {
     @Override
     public boolean value(final Object o) {
@@ -107,6 +113,9 @@ public abstract class ComponentManagerImpl extends UserDataHolderBase implements
 
   private void createComponents() {
     try {
+      if (PRELOAD_COMPONENT_CLASSES) {
+        preloadClasses(myComponentsRegistry.myComponentConfigs);
+      }
       myComponentsRegistry.loadClasses();
 
       Class[] componentInterfaces = myComponentsRegistry.getComponentInterfaces();
@@ -123,6 +132,31 @@ public abstract class ComponentManagerImpl extends UserDataHolderBase implements
     }
   }
 
+  /**
+   * Components are instantiated one by one in the registration order: {@link BaseComponent#initComponent()} of a component may rely
+   * on the components created before it, and component constructors may query other components under the manager lock.
+   * What doesn't depend on the order is loading (reading, defining and verifying) of the component classes and of their constructor
+   * parameter types, so it's done on pooled threads ahead of the sequential creation, which then finds most classes already loaded.
+   * The classes aren't initialized here, static initializers still run in the usual order.
+   */
+  private static void preloadClasses(@Nonnull List<ComponentConfig> configs) {
+    for (final ComponentConfig config : configs) {
+      if (!ourPreloadedConfigs.add(config)) continue;
+      ourClassPreloader.execute(() -> {
+        ClassLoader loader = config.getClassLoader();
+        try {
+          Class.forName(config.getInterfaceClass(), false, loader);
+          if (!Comparing.equal(config.getInterfaceClass(), config.getImplementationClass())) {
+            Class.forName(config.getImplementationClass(), false, loader).getDeclaredConstructors();
+          }
+        }
+        catch (Throwable ignored) {
+          // reported by loadClasses
+        }
+      });
+    }
+  }
+
   protected synchronized Object createComponent(@Nonnull Class componentInterface) {
     final Object component = getPicoContainer().getComponentInstance(componentInterface.getName());
     LOG.assertTrue(component != null, "Can't instantiate component for: " + componentInterface);
@@ -156,6 +190,10 @@ public abstract class ComponentManagerImpl extends UserDataHolderBase implements
     final T initializedComponent = (T)myInitializedComponents.get(interfaceClass);
     if (initializedComponent != null) return initializedComponent;
 
+    // services are looked up here first, don't make them wait for the manager lock
+    ComponentsRegistry registry = myComponentsRegistry;
+    if (registry == null || !registry.containsInterface(interfaceClass)) return null;
+
     synchronized (this) {
       if (myComponentsRegistry == null || !myComponentsRegistry.containsInterface(interfaceClass)) {
         return null;
@@ -251,8 +289,9 @@ public abstract class ComponentManagerImpl extends UserDataHolderBase implements
   }
 
   @Override
-  public synchronized boolean hasComponent(@Nonnull Class interfaceClass) {
-    return myComponentsRegistry != null && myComponentsRegistry.containsInterface(interfaceClass);
+  public boolean hasComponent(@Nonnull Class interfaceClass) {
+    ComponentsRegistry registry = myComponentsRegistry;
+    return registry != null && registry.containsInterface(interfaceClass);
   }
 
   @Nonnull
@@ -412,7 +451,8 @@ public abstract class ComponentManagerImpl extends UserDataHolderBase implements
 
   protected class ComponentsRegistry {
     private final Map<Class, Object> myInterfaceToLockMap = new THashMap<>();
-    private final Map<Class, Class> myInterfaceToClassMap = new THashMap<>();
+    // read without the manager lock
+    private final Map<Class, Class> myInterfaceToClassMap = ContainerUtil.newConcurrentMap();
     private final List<Class> myComponentInterfaces = new ArrayList<>(); // keeps order of component's registration
     private final Map<String, BaseComponent> myNameToComponent = new THashMap<>();
     private final List<ComponentConfig> myComponentConfigs = new ArrayList<>();
@@ -53,6 +53,11 @@ abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBlackTree<
   private final ReferenceQueue<T> myReferenceQueue = new ReferenceQueue<T>();
   private int deadReferenceCount;
 
+  // copy-on-write view for lock-free readers, see isSnapshotEnabled(); dropped (under write lock) before every modification
+  private volatile IntervalTreeSnapshot<T> mySnapshot;
+  // true if somebody asked for the snapshot since the last modification; rebuild only on the second request to not waste time on write bursts
+  private volatile boolean mySnapshotRequested;
+
   static class IntervalNode<E extends MutableInterval> extends RedBlackTree.Node<E> implements MutableInterval {
     private volatile int myStart;
     private volatile int myEnd;
@@ -419,6 +424,69 @@ abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBlackTree<
     return (IntervalNode<T>)root;
   }
 
+  /**
+   * Return true to let readers query an immutable snapshot of the tree instead of walking it under the read lock.
+   * The snapshot holds its keys strongly, so it must be enabled only for trees which reference their keys strongly anyway.
+   */
+  protected boolean isSnapshotEnabled() {
+    return false;
+  }
+
+  // must be called under l.writeLock() before any modification of the tree structure or offsets
+  void dropSnapshot() {
+    mySnapshot = null;
+    mySnapshotRequested = false;
+  }
+
+  /**
+   * @return up-to-date snapshot of the tree, or null if the snapshot is disabled, the tree is being modified right now or
+   * the tree changes faster than it is read. Never blocks.
+   */
+  @Nullable
+  IntervalTreeSnapshot<T> getSnapshot() {
+    if (!isSnapshotEnabled()) return null;
+    IntervalTreeSnapshot<T> snapshot = mySnapshot;
+    if (snapshot != null) return snapshot;
+    if (!mySnapshotRequested) {
+      mySnapshotRequested = true;
+      return null;
+    }
+    if (!l.readLock().tryLock()) return null;
+    try {
+      snapshot = mySnapshot;
+      if (snapshot == null && mySnapshotRequested) {
+        snapshot = buildSnapshot();
+        mySnapshot = snapshot;
+      }
+      return snapshot;
+    }
+    finally {
+      l.readLock().unlock();
+    }
+  }
+
+  @Nonnull
+  private IntervalTreeSnapshot<T> buildSnapshot() {
+    IntervalTreeSnapshot.Builder<T> builder = new IntervalTreeSnapshot.Builder<T>(keySize);
+    collectInOrder(getRoot(), 0, builder);
+    return builder.build();
+  }
+
+  private void collectInOrder(@Nullable IntervalNode<T> root, int deltaUpToRootExclusive, @Nonnull IntervalTreeSnapshot.Builder<T> builder) {
+    if (root == null) return;
+    int delta = deltaUpToRootExclusive + (root.isValid() ? root.delta : 0);
+    collectInOrder(root.getLeft(), delta, builder);
+    if (root.isValid()) {
+      int start = root.intervalStart() + delta;
+      int end = root.intervalEnd() + delta;
+      for (int i = 0; i < root.intervals.size(); i++) {
+        T t = root.intervals.get(i).get();
+        if (t != null) builder.add(t, start, end);
+      }
+    }
+    collectInOrder(root.getRight(), delta, builder);
+  }
+
   @Override
   public boolean process(@Nonnull Processor<? super T> processor) {
     try {
@@ -573,6 +641,15 @@ abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBlackTree<
     return processContaining(root.getRight(), offset, modCountBefore, delta, processor);
   }
 
+  @Nonnull
+  private MarkupIterator<T> overlappingIteratorPreferSnapshot(@Nonnull TextRangeInterval rangeInterval) {
+    IntervalTreeSnapshot<T> snapshot = getSnapshot();
+    if (snapshot != null) {
+      return snapshot.overlappingIterator(rangeInterval.getStartOffset(), rangeInterval.getEndOffset());
+    }
+    return overlappingIterator(rangeInterval);
+  }
+
   @Nonnull
   private MarkupIterator<T> overlappingIterator(@Nonnull final TextRangeInterval rangeInterval) {
     l.readLock().lock();
@@ -766,6 +843,7 @@ abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBlackTree<
     if (collectedAway.isEmpty()) return;
     try {
       l.writeLock().lock();
+      dropSnapshot();
       for (IntervalNode<T> node : collectedAway) {
         removeNode(node);
       }
@@ -782,6 +860,7 @@ abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBlackTree<
       if (firingBeforeRemove) {
         throw new IncorrectOperationException("Must not add rangemarker from within beforeRemoved listener");
       }
+      dropSnapshot();
       checkMax(true);
       processReferenceQueue();
       modCount++;
@@ -948,6 +1027,7 @@ abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBlackTree<
     if (!interval.isValid()) return false;
     try {
       l.writeLock().lock();
+      dropSnapshot();
       modCount++;
       if (!interval.isValid()) return false;
       checkBelongsToTheTree(interval, true);
@@ -1230,6 +1310,7 @@ abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBlackTree<
   void changeData(@Nonnull T interval, int start, int end, boolean greedyToLeft, boolean greedyToRight, int layer) {
     try {
       l.writeLock().lock();
+      dropSnapshot();
 
       IntervalNode<T> node = lookupNode(interval);
       if (node == null) return;
@@ -1277,6 +1358,7 @@ abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBlackTree<
   @Override
   public void clear() {
     l.writeLock().lock();
+    dropSnapshot();
     process(new Processor<T>() {
       @Override
       public boolean process(T t) {
@@ -1380,8 +1462,8 @@ abstract class IntervalTreeImpl<T extends MutableInterval> extends RedBlackTree<
                                                                                   @Nonnull IntervalTreeImpl<T> tree2,
                                                                                   @Nonnull TextRangeInterval tree2Range,
                                                                                   @Nonnull Comparator<? super T> comparator) {
-    MarkupIterator<T> exact = tree1.overlappingIterator(tree1Range);
-    MarkupIterator<T> lines = tree2.overlappingIterator(tree2Range);
+    MarkupIterator<T> exact = tree1.overlappingIteratorPreferSnapshot(tree1Range);
+    MarkupIterator<T> lines = tree2.overlappingIteratorPreferSnapshot(tree2Range);
     return mergeIterators(exact, lines, comparator);
   }
 
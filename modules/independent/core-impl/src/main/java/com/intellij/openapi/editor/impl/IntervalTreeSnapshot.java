@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.openapi.editor.impl;
+
+import com.intellij.openapi.editor.ex.MarkupIterator;
+import com.intellij.util.IncorrectOperationException;
+import com.intellij.util.Processor;
+
+import javax.annotation.Nonnull;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable copy of the {@link IntervalTreeImpl} content, in the tree (in-order) order.
+ * Readers query it without taking the tree lock, so they never wait for writers (and writers never wait for them).
+ * The snapshot is dropped by the tree before every modification and rebuilt lazily on demand.
+ */
+final class IntervalTreeSnapshot<T> {
+  private final Object[] myKeys;
+  private final int[] myStarts;
+  private final int[] myEnds;
+  private final int[] myMaxEnds; // myMaxEnds[i] = max(myEnds[0..i]), non-decreasing, used to find the first candidate
+  private final int mySize;
+
+  private IntervalTreeSnapshot(@Nonnull Object[] keys, @Nonnull int[] starts, @Nonnull int[] ends, int size) {
+    myKeys = keys;
+    myStarts = starts;
+    myEnds = ends;
+    mySize = size;
+    myMaxEnds = new int[size];
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      max = Math.max(max, ends[i]);
+      myMaxEnds[i] = max;
+    }
+  }
+
+  int size() {
+    return mySize;
+  }
+
+  boolean processOverlappingWith(int start, int end, @Nonnull Processor<? super T> processor) {
+    for (int i = firstCandidate(start); i < mySize && myStarts[i] <= end; i++) {
+      if (overlaps(i, start, end) && !processor.process(keyAt(i))) return false;
+    }
+    return true;
+  }
+
+  @Nonnull
+  MarkupIterator<T> overlappingIterator(final int start, final int end) {
+    final int first = firstCandidate(start);
+    return new MarkupIterator<T>() {
+      private int myIndex = advance(first);
+
+      private int advance(int i) {
+        while (i < mySize && myStarts[i] <= end && !overlaps(i, start, end)) i++;
+        return i < mySize && myStarts[i] <= end ? i : mySize;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return myIndex < mySize;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T t = keyAt(myIndex);
+        myIndex = advance(myIndex + 1);
+        return t;
+      }
+
+      @Override
+      public T peek() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return keyAt(myIndex);
+      }
+
+      @Override
+      public void remove() {
+        throw new IncorrectOperationException();
+      }
+
+      @Override
+      public void dispose() {
+      }
+    };
+  }
+
+  private boolean overlaps(int i, int start, int end) {
+    return Math.max(myStarts[i], start) <= Math.min(myEnds[i], end);
+  }
+
+  // index of the first interval which can end at or after start
+  private int firstCandidate(int start) {
+    int lo = 0;
+    int hi = mySize;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (myMaxEnds[mid] < start) {
+        lo = mid + 1;
+      }
+      else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private T keyAt(int i) {
+    //noinspection unchecked
+    return (T)myKeys[i];
+  }
+
+  static class Builder<T> {
+    private Object[] myKeys;
+    private int[] myStarts;
+    private int[] myEnds;
+    private int mySize;
+
+    Builder(int expectedSize) {
+      int capacity = Math.max(expectedSize, 4);
+      myKeys = new Object[capacity];
+      myStarts = new int[capacity];
+      myEnds = new int[capacity];
+    }
+
+    void add(@Nonnull T key, int start, int end) {
+      if (mySize == myKeys.length) {
+        int newCapacity = mySize * 3 / 2 + 1;
+        Object[] keys = new Object[newCapacity];
+        System.arraycopy(myKeys, 0, keys, 0, mySize);
+        myKeys = keys;
+        int[] starts = new int[newCapacity];
+        System.arraycopy(myStarts, 0, starts, 0, mySize);
+        myStarts = starts;
+        int[] ends = new int[newCapacity];
+        System.arraycopy(myEnds, 0, ends, 0, mySize);
+        myEnds = ends;
+      }
+      myKeys[mySize] = key;
+      myStarts[mySize] = start;
+      myEnds[mySize] = end;
+      mySize++;
+    }
+
+    @Nonnull
+    IntervalTreeSnapshot<T> build() {
+      return new IntervalTreeSnapshot<T>(myKeys, myStarts, myEnds, mySize);
+    }
+  }
+}
@@ -184,6 +184,7 @@ public class RangeMarkerTree<T extends RangeMarkerEx> extends IntervalTreeImpl<T
     try {
       l.writeLock().lock();
       if (size() == 0) return;
+      dropSnapshot();
       checkMax(true);
 
       modCount++;
@@ -372,6 +373,7 @@ public class RangeMarkerTree<T extends RangeMarkerEx> extends IntervalTreeImpl<T
   private void reTarget(int start, int end, int newBase) {
     l.writeLock().lock();
     try {
+      dropSnapshot();
       checkMax(true);
 
       List<IntervalNode<T>> affected = new ArrayList<IntervalNode<T>>();
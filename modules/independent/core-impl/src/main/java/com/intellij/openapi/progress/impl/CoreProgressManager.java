@@ -33,7 +33,6 @@ import com.intellij.util.containers.ConcurrentLongObjectMap;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.containers.SmartHashSet;
 import gnu.trove.THashMap;
-import gnu.trove.THashSet;
 import org.jetbrains.annotations.Nls;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -64,9 +63,13 @@ public class CoreProgressManager extends ProgressManager implements Disposable {
   private static final ConcurrentLongObjectMap<ProgressIndicator> currentIndicators = ContainerUtil.createConcurrentLongObjectMap();
   // top-level indicators for the thread id
   private static final ConcurrentLongObjectMap<ProgressIndicator> threadTopLevelIndicators = ContainerUtil.createConcurrentLongObjectMap();
-  // threads which are running under canceled indicator
-  static final Set<Thread> threadsUnderCanceledIndicator = new THashSet<>(); // guarded by threadsUnderIndicator
+  // threads which are running under canceled indicator.
+  // modified under threadsUnderIndicator lock, read without it by doCheckCanceled() to let threads under non-canceled indicators out early
+  static final Set<Thread> threadsUnderCanceledIndicator = ContainerUtil.newConcurrentSet();
+  // true if some thread runs under a canceled indicator or there is a check canceled hook
   private static volatile boolean shouldCheckCanceled;
+  // forces the full check in every thread, see ProgressManagerImpl#runWithAlwaysCheckingCanceled
+  static volatile boolean alwaysCheckCanceled;
 
   /** active (i.e. which have {@link #executeProcessUnderProgress(Runnable, ProgressIndicator)} method running) indicators
    *  which are not inherited from {@link StandardProgressIndicator}.
@@ -127,6 +130,9 @@ public class CoreProgressManager extends ProgressManager implements Disposable {
   @Override
   protected void doCheckCanceled() throws ProcessCanceledException {
     if (!shouldCheckCanceled) return;
+    // without hooks only the canceled threads can throw, the rest doesn't need the indicator lookup,
+    // so a canceled background task doesn't slow down checkCanceled() in every other thread
+    if (ourCheckCanceledHook == null && !alwaysCheckCanceled && !threadsUnderCanceledIndicator.contains(Thread.currentThread())) return;
 
     final ProgressIndicator progress = getProgressIndicator();
     if (progress != null && ENABLED) {
@@ -626,9 +632,7 @@ public class CoreProgressManager extends ProgressManager implements Disposable {
 
   @TestOnly
   public static boolean isCanceledThread(@Nonnull Thread thread) {
-    synchronized (threadsUnderIndicator) {
-      return threadsUnderCanceledIndicator.contains(thread);
-    }
+    return threadsUnderCanceledIndicator.contains(thread);
   }
 
   @Nonnull
@@ -81,6 +81,16 @@ public class MarkupModelWindow extends UserDataHolderBase implements MarkupModel
     myHostModel.changeAttributesInBatch(highlighter, changeAttributesAction);
   }
 
+  @Override
+  public void runInBulkUpdate(@Nonnull Runnable action) {
+    myHostModel.runInBulkUpdate(action);
+  }
+
+  @Override
+  public boolean isInBulkUpdate() {
+    return myHostModel.isInBulkUpdate();
+  }
+
   @Override
   @Nonnull
   public RangeHighlighter addLineHighlighter(final int line, final int layer, final TextAttributes textAttributes) {
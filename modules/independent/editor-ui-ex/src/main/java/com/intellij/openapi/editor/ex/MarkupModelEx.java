@@ -71,4 +71,10 @@ public interface MarkupModelEx extends MarkupModel {
 
   // runs change attributes action and fires highlighterChanged event if there were changes
   void changeAttributesInBatch(@Nonnull RangeHighlighterEx highlighter, @Nonnull Consumer<RangeHighlighterEx> changeAttributesAction);
+
+  // runs action which adds, removes or changes many highlighters; listeners are notified by bulkUpdateStarted/bulkUpdateFinished around it
+  // so they can repaint once for the whole batch
+  void runInBulkUpdate(@Nonnull Runnable action);
+
+  boolean isInBulkUpdate();
 }
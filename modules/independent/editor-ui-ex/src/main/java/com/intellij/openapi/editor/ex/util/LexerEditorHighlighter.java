@@ -17,10 +17,13 @@ package com.intellij.openapi.editor.ex.util;
 
 import com.intellij.lexer.Lexer;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.diagnostic.Attachment;
 import com.intellij.openapi.diagnostic.ExceptionWithAttachments;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.RangeMarker;
 import com.intellij.openapi.editor.colors.EditorColorsScheme;
 import com.intellij.openapi.editor.colors.TextAttributesKey;
 import com.intellij.openapi.editor.event.DocumentEvent;
@@ -44,12 +47,18 @@ import com.intellij.util.text.MergingCharSequence;
 import com.intellij.util.text.SingleCharSequence;
 import com.intellij.util.ui.UIUtil;
 import javax.annotation.Nonnull;
+import org.jetbrains.annotations.TestOnly;
 
 import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntUnaryOperator;
 
 public class LexerEditorHighlighter implements EditorHighlighter, PrioritizedDocumentListener {
   private static final Logger LOG = Logger.getInstance(LexerEditorHighlighter.class);
   private static final int LEXER_INCREMENTALITY_THRESHOLD = 200;
+  // a change which alters lexer state (e.g. an unclosed string or comment) may require relexing up to the end of a large file,
+  // that many tokens after the change are relexed at once, the rest is relexed later in portions of the same size
+  private static final int MAX_TOKENS_TO_RELEX_AT_ONCE = 20000;
   private static final Set<Class> ourNonIncrementalLexers = new HashSet<>();
   private HighlighterClient myEditor;
   private final Lexer myLexer;
@@ -59,6 +68,13 @@ public class LexerEditorHighlighter implements EditorHighlighter, PrioritizedDoc
   private EditorColorsScheme myScheme;
   private final int myInitialState;
   protected CharSequence myText;
+  // offsets starting from which segments may be stale and are to be relexed, see MAX_TOKENS_TO_RELEX_AT_ONCE
+  private final List<RangeMarker> myPendingRelexStarts = new ArrayList<>();
+  private boolean myPendingRelexScheduled;
+  // segments are read in read action without synchronization (see HighlighterIteratorImpl), relexing them later, outside of
+  // the write action of the change, takes the write lock, so that the iterators notice it and find their segments again
+  private final StampedLock mySegmentsLock = new StampedLock();
+  private boolean myDeferRelexInTests;
 
   public LexerEditorHighlighter(@Nonnull SyntaxHighlighter highlighter, @Nonnull EditorColorsScheme scheme) {
     myScheme = scheme;
@@ -157,6 +173,7 @@ public class LexerEditorHighlighter implements EditorHighlighter, PrioritizedDoc
       if (document instanceof DocumentEx && ((DocumentEx)document).isInBulkUpdate()) {
         myText = null;
         mySegments.removeAll();
+        clearPendingRelex();
         return;
       }
 
@@ -166,161 +183,256 @@ public class LexerEditorHighlighter implements EditorHighlighter, PrioritizedDoc
       }
 
       myText = text;
-      int oldStartOffset = e.getOffset();
-
-      final int segmentIndex = mySegments.findSegmentIndex(oldStartOffset) - 2;
-      final int oldStartIndex = Math.max(0, segmentIndex);
-      int startIndex = oldStartIndex;
+      relex(text, e.getOffset(), e.getOldLength(), e.getNewLength());
+    }
+    catch (ProcessCanceledException ex) {
+      myText = null;
+      mySegments.removeAll();
+      clearPendingRelex();
+      throw ex;
+    }
+    catch (RuntimeException ex) {
+      throw new InvalidStateException(this, "Error updating  after " + e, ex);
+    }
+  }
 
-      int data;
-      do {
-        data = mySegments.getSegmentData(startIndex);
-        if (isInitialState(data) || startIndex == 0) break;
-        startIndex--;
-      }
-      while (true);
+  /**
+   * Relexes the text starting from the changed region till the lexer comes to the same state at the same token as before the change.
+   * If it takes too long, segments after {@link #MAX_TOKENS_TO_RELEX_AT_ONCE} tokens are left as is (they are stale but consistent
+   * with the text) and relexed later, see {@link #relexPending()}.
+   */
+  private void relex(@Nonnull CharSequence text, int changeOffset, int oldLength, int newLength) {
+    final int segmentIndex = mySegments.findSegmentIndex(changeOffset) - 2;
+    final int oldStartIndex = Math.max(0, segmentIndex);
+    int startIndex = oldStartIndex;
+
+    int data;
+    do {
+      data = mySegments.getSegmentData(startIndex);
+      if (isInitialState(data) || startIndex == 0) break;
+      startIndex--;
+    }
+    while (true);
 
-      int startOffset = mySegments.getSegmentStart(startIndex);
-      int newEndOffset = e.getOffset() + e.getNewLength();
+    int startOffset = mySegments.getSegmentStart(startIndex);
+    int newEndOffset = changeOffset + newLength;
+    boolean canDefer = getDocument() != null && (myDeferRelexInTests || !ApplicationManager.getApplication().isUnitTestMode());
 
-      myLexer.start(text, startOffset, text.length(), myInitialState);
+    myLexer.start(text, startOffset, text.length(), myInitialState);
 
-      int lastTokenStart = -1;
-      int lastLexerState = -1;
-      IElementType lastTokenType = null;
+    int lastTokenStart = -1;
+    int lastLexerState = -1;
+    IElementType lastTokenType = null;
 
-      while (myLexer.getTokenType() != null) {
-        if (startIndex >= oldStartIndex) break;
+    while (myLexer.getTokenType() != null) {
+      if (startIndex >= oldStartIndex) break;
 
-        int tokenStart = myLexer.getTokenStart();
-        int lexerState = myLexer.getState();
+      int tokenStart = myLexer.getTokenStart();
+      int lexerState = myLexer.getState();
 
-        if (tokenStart == lastTokenStart && lexerState == lastLexerState && myLexer.getTokenType() == lastTokenType) {
-          throw new IllegalStateException("Lexer is not progressing after calling advance()");
-        }
+      if (tokenStart == lastTokenStart && lexerState == lastLexerState && myLexer.getTokenType() == lastTokenType) {
+        throw new IllegalStateException("Lexer is not progressing after calling advance()");
+      }
 
-        int tokenEnd = myLexer.getTokenEnd();
-        data = packData(myLexer.getTokenType(), lexerState);
-        if (mySegments.getSegmentStart(startIndex) != tokenStart ||
-            mySegments.getSegmentEnd(startIndex) != tokenEnd ||
-            mySegments.getSegmentData(startIndex) != data) {
-          break;
-        }
-        startIndex++;
-        lastTokenType = myLexer.getTokenType();
-        myLexer.advance();
-        lastTokenStart = tokenStart;
-        lastLexerState = lexerState;
+      int tokenEnd = myLexer.getTokenEnd();
+      data = packData(myLexer.getTokenType(), lexerState);
+      if (mySegments.getSegmentStart(startIndex) != tokenStart ||
+          mySegments.getSegmentEnd(startIndex) != tokenEnd ||
+          mySegments.getSegmentData(startIndex) != data) {
+        break;
       }
+      startIndex++;
+      lastTokenType = myLexer.getTokenType();
+      myLexer.advance();
+      lastTokenStart = tokenStart;
+      lastLexerState = lexerState;
+    }
 
-      /*
-        Highlighting lexer is expected to periodically return to its "initial state" and
-        so to denote valid starting points for incremental highlighting.
+    /*
+      Highlighting lexer is expected to periodically return to its "initial state" and
+      so to denote valid starting points for incremental highlighting.
 
-        If this requirement is unfulfiled, document has to be always re-analyzed from the beginning
-        up to the point of modification,  which can hog CPU and make typing / editing very sluggish,
-        especially at large offsets (with at least O(n) time complexity).
+      If this requirement is unfulfiled, document has to be always re-analyzed from the beginning
+      up to the point of modification,  which can hog CPU and make typing / editing very sluggish,
+      especially at large offsets (with at least O(n) time complexity).
 
-        As the faulty lexer implementations otherwise behave normally, it's often hard to spot the problem in the wild.
-        Despite additng LexerTestCase.checkCorrectRestart and LexerTestCase.checkZeroState checks and fixing many lexers,
-        it's still not so unusual to discover a further broken lexer through pure luck.
+      As the faulty lexer implementations otherwise behave normally, it's often hard to spot the problem in the wild.
+      Despite additng LexerTestCase.checkCorrectRestart and LexerTestCase.checkZeroState checks and fixing many lexers,
+      it's still not so unusual to discover a further broken lexer through pure luck.
 
-        The following runtime check reports cases when document has to be re-analyzed from 0 offset and
-        the number of traversed tokens is greater than a predefined threshold.
+      The following runtime check reports cases when document has to be re-analyzed from 0 offset and
+      the number of traversed tokens is greater than a predefined threshold.
 
-        Because many highlighting lexers are implemented via the LayeredLexer which forces non-initial state
-        (and thus suppresses incrementality) within layers, some false-positivess are probable.
-        For example, it's possible to trigger the warning by creating a file with a really large comment
-        right at the beginning, and then to modify text at the end of that comment.
-        However, this seems to be a rather unusual use case, so that the gain from detecting faulty
-        lexers (including third-party ones) justifies the check.
+      Because many highlighting lexers are implemented via the LayeredLexer which forces non-initial state
+      (and thus suppresses incrementality) within layers, some false-positivess are probable.
+      For example, it's possible to trigger the warning by creating a file with a really large comment
+      right at the beginning, and then to modify text at the end of that comment.
+      However, this seems to be a rather unusual use case, so that the gain from detecting faulty
+      lexers (including third-party ones) justifies the check.
 
-        In a sense, the warning is always righteous, as even with proper layered lexers there really is
-        no incrementality within layers, which might lead to performance problem in corresponding cases.
-       */
-      if (ApplicationManager.getApplication().isInternal() && startOffset == 0 && startIndex > LEXER_INCREMENTALITY_THRESHOLD) {
+      In a sense, the warning is always righteous, as even with proper layered lexers there really is
+      no incrementality within layers, which might lead to performance problem in corresponding cases.
+     */
+    if (ApplicationManager.getApplication().isInternal() && startOffset == 0 && startIndex > LEXER_INCREMENTALITY_THRESHOLD) {
 
-        Class lexerClass = myLexer.getClass();
+      Class lexerClass = myLexer.getClass();
 
-        if (!ourNonIncrementalLexers.contains(lexerClass)) {
-          LOG.warn(String.format("%s is probably not incremental: no initial state throughout %d tokens", lexerClass.getName(), startIndex));
+      if (!ourNonIncrementalLexers.contains(lexerClass)) {
+        LOG.warn(String.format("%s is probably not incremental: no initial state throughout %d tokens", lexerClass.getName(), startIndex));
 
-          ourNonIncrementalLexers.add(lexerClass);
-        }
+        ourNonIncrementalLexers.add(lexerClass);
       }
+    }
 
-      startOffset = mySegments.getSegmentStart(startIndex);
-      int repaintEnd = -1;
-      int insertSegmentCount = 0;
-      int oldEndIndex = -1;
-      lastTokenType = null;
-      SegmentArrayWithData insertSegments = new SegmentArrayWithData();
-
-      while (myLexer.getTokenType() != null) {
-        int tokenStart = myLexer.getTokenStart();
-        int lexerState = myLexer.getState();
-
-        if (tokenStart == lastTokenStart && lexerState == lastLexerState && myLexer.getTokenType() == lastTokenType) {
-          throw new IllegalStateException("Lexer is not progressing after calling advance()");
-        }
+    startOffset = mySegments.getSegmentStart(startIndex);
+    int repaintEnd = -1;
+    int insertSegmentCount = 0;
+    int oldEndIndex = -1;
+    lastTokenType = null;
+    SegmentArrayWithData insertSegments = new SegmentArrayWithData();
 
-        lastTokenStart = tokenStart;
-        lastLexerState = lexerState;
-        lastTokenType = myLexer.getTokenType();
+    while (myLexer.getTokenType() != null) {
+      int tokenStart = myLexer.getTokenStart();
+      int lexerState = myLexer.getState();
+
+      if (tokenStart == lastTokenStart && lexerState == lastLexerState && myLexer.getTokenType() == lastTokenType) {
+        throw new IllegalStateException("Lexer is not progressing after calling advance()");
+      }
+
+      lastTokenStart = tokenStart;
+      lastLexerState = lexerState;
+      lastTokenType = myLexer.getTokenType();
 
-        int tokenEnd = myLexer.getTokenEnd();
-        data = packData(myLexer.getTokenType(), lexerState);
-        if (tokenStart >= newEndOffset && lexerState == myInitialState) {
-          int shiftedTokenStart = tokenStart - e.getNewLength() + e.getOldLength();
-          int index = mySegments.findSegmentIndex(shiftedTokenStart);
-          if (mySegments.getSegmentStart(index) == shiftedTokenStart && mySegments.getSegmentData(index) == data) {
+      int tokenEnd = myLexer.getTokenEnd();
+      data = packData(myLexer.getTokenType(), lexerState);
+      if (tokenStart >= newEndOffset && lexerState == myInitialState) {
+        int shiftedTokenStart = tokenStart - newLength + oldLength;
+        int index = mySegments.findSegmentIndex(shiftedTokenStart);
+        if (mySegments.getSegmentStart(index) == shiftedTokenStart) {
+          if (mySegments.getSegmentData(index) == data) {
             repaintEnd = tokenStart;
             oldEndIndex = index;
             break;
           }
-        }
-        insertSegments.setElementAt(insertSegmentCount, tokenStart, tokenEnd, data);
-        insertSegmentCount++;
-        myLexer.advance();
-      }
-
-      final int shift = e.getNewLength() - e.getOldLength();
-      if (repaintEnd > 0) {
-        while (insertSegmentCount > 0 && oldEndIndex > startIndex) {
-          if (!segmentsEqual(mySegments, oldEndIndex - 1, insertSegments, insertSegmentCount - 1, shift)) {
+          if (canDefer && insertSegmentCount >= MAX_TOKENS_TO_RELEX_AT_ONCE) {
+            // the lexer may be restarted here, leave the old segments starting from this token to be relexed later
+            addPendingRelex(tokenStart);
+            repaintEnd = tokenStart;
+            oldEndIndex = index;
             break;
           }
-          insertSegmentCount--;
-          oldEndIndex--;
-          repaintEnd = insertSegments.getSegmentStart(insertSegmentCount);
-          insertSegments.remove(insertSegmentCount, insertSegmentCount + 1);
         }
       }
+      insertSegments.setElementAt(insertSegmentCount, tokenStart, tokenEnd, data);
+      insertSegmentCount++;
+      myLexer.advance();
+    }
 
-      if (repaintEnd == -1) {
-        repaintEnd = text.length();
+    final int shift = newLength - oldLength;
+    if (repaintEnd > 0) {
+      while (insertSegmentCount > 0 && oldEndIndex > startIndex) {
+        if (!segmentsEqual(mySegments, oldEndIndex - 1, insertSegments, insertSegmentCount - 1, shift)) {
+          break;
+        }
+        insertSegmentCount--;
+        oldEndIndex--;
+        repaintEnd = insertSegments.getSegmentStart(insertSegmentCount);
+        insertSegments.remove(insertSegmentCount, insertSegmentCount + 1);
       }
+    }
 
-      if (oldEndIndex < 0) {
-        oldEndIndex = mySegments.getSegmentCount();
-      }
-      mySegments.shiftSegments(oldEndIndex, shift);
-      mySegments.replace(startIndex, oldEndIndex, insertSegments);
+    if (repaintEnd == -1) {
+      repaintEnd = text.length();
+    }
 
-      if (insertSegmentCount == 0 || oldEndIndex == startIndex + 1 && insertSegmentCount == 1 && data == mySegments.getSegmentData(startIndex)) {
-        return;
-      }
+    if (oldEndIndex < 0) {
+      oldEndIndex = mySegments.getSegmentCount();
+    }
+    mySegments.shiftSegments(oldEndIndex, shift);
+    mySegments.replace(startIndex, oldEndIndex, insertSegments);
 
-      myEditor.repaint(startOffset, repaintEnd);
+    if (insertSegmentCount == 0 || oldEndIndex == startIndex + 1 && insertSegmentCount == 1 && data == mySegments.getSegmentData(startIndex)) {
+      return;
     }
-    catch (ProcessCanceledException ex) {
-      myText = null;
-      mySegments.removeAll();
-      throw ex;
+
+    myEditor.repaint(startOffset, repaintEnd);
+  }
+
+  private void addPendingRelex(int offset) {
+    Document document = getDocument();
+    assert document != null;
+    myPendingRelexStarts.add(document.createRangeMarker(offset, offset));
+    if (!myPendingRelexScheduled) {
+      schedulePendingRelex();
     }
-    catch (RuntimeException ex) {
-      throw new InvalidStateException(this, "Error updating  after " + e, ex);
+  }
+
+  private void schedulePendingRelex() {
+    myPendingRelexScheduled = true;
+    ModalityState modalityState = myEditor instanceof Editor
+                                  ? ModalityState.stateForComponent(((Editor)myEditor).getComponent())
+                                  : ModalityState.defaultModalityState();
+    ApplicationManager.getApplication().invokeLater(this::relexPending, modalityState, o -> isPendingRelexExpired());
+  }
+
+  private boolean isPendingRelexExpired() {
+    if (myEditor instanceof Editor && ((Editor)myEditor).isDisposed()) return true;
+    Project project = myEditor.getProject();
+    return project != null && project.isDisposed();
+  }
+
+  private void clearPendingRelex() {
+    for (RangeMarker marker : myPendingRelexStarts) {
+      marker.dispose();
     }
+    myPendingRelexStarts.clear();
+  }
+
+  private synchronized void relexPending() {
+    myPendingRelexScheduled = false;
+    Document document = getDocument();
+    if (myPendingRelexStarts.isEmpty() || document == null || mySegments.getSegmentCount() == 0) {
+      clearPendingRelex();
+      return;
+    }
+    RangeMarker first = myPendingRelexStarts.get(0);
+    for (RangeMarker marker : myPendingRelexStarts) {
+      if (marker.getStartOffset() < first.getStartOffset()) first = marker;
+    }
+    myPendingRelexStarts.remove(first);
+    boolean valid = first.isValid();
+    int relexStart = first.getStartOffset();
+    first.dispose();
+    CharSequence text = document.getImmutableCharSequence();
+    if (valid && mySegments.getLastValidOffset() == text.length()) {
+      long stamp = mySegmentsLock.writeLock();
+      try {
+        relex(text, relexStart, 0, 0);
+      }
+      catch (ProcessCanceledException ex) {
+        myText = null;
+        mySegments.removeAll();
+        clearPendingRelex();
+        throw ex;
+      }
+      catch (RuntimeException ex) {
+        throw new InvalidStateException(this, "Error relexing from " + relexStart, ex);
+      }
+      finally {
+        mySegmentsLock.unlockWrite(stamp);
+      }
+    }
+    if (!myPendingRelexStarts.isEmpty() && !myPendingRelexScheduled) {
+      schedulePendingRelex();
+    }
+  }
+
+  /**
+   * Relexing of large changes is deferred only outside of tests by default, so that tests see the final segments right after a change.
+   */
+  @TestOnly
+  public void setDeferRelexInTests(boolean defer) {
+    myDeferRelexInTests = defer;
   }
 
   @Override
@@ -363,6 +475,7 @@ public class LexerEditorHighlighter implements EditorHighlighter, PrioritizedDoc
     if (Comparing.equal(myText, text)) return;
     myText = ImmutableCharSequence.asImmutable(text);
 
+    clearPendingRelex();
     final TokenProcessor processor = createTokenProcessor(0);
     final int textLength = text.length();
     myLexer.start(text, 0, textLength, myInitialState);
@@ -500,18 +613,24 @@ public class LexerEditorHighlighter implements EditorHighlighter, PrioritizedDoc
 
   public class HighlighterIteratorImpl implements HighlighterIterator {
     private int mySegmentIndex = 0;
+    // mySegmentsLock stamp the index is valid for, and an offset within the segment to find it again after a deferred relex
+    // (which doesn't move the text, only splits it into tokens anew); -1 before the first segment, MAX_VALUE after the last one
+    private long myStamp;
+    private int myOffset;
 
     HighlighterIteratorImpl(int startOffset) {
+      myStamp = mySegmentsLock.tryOptimisticRead();
       try {
         mySegmentIndex = mySegments.findSegmentIndex(startOffset);
       }
       catch (IllegalStateException e) {
         throw new InvalidStateException(LexerEditorHighlighter.this, "wrong state", e);
       }
+      myOffset = startOffset;
     }
 
     public int currentIndex() {
-      return mySegmentIndex;
+      return readSegment(index -> index);
     }
 
     @Override
@@ -521,38 +640,82 @@ public class LexerEditorHighlighter implements EditorHighlighter, PrioritizedDoc
 
     @Override
     public int getStart() {
-      return mySegments.getSegmentStart(mySegmentIndex);
+      return readSegment(mySegments::getSegmentStart);
     }
 
     @Override
     public int getEnd() {
-      return mySegments.getSegmentEnd(mySegmentIndex);
+      return readSegment(mySegments::getSegmentEnd);
     }
 
     @Override
     public IElementType getTokenType() {
-      return unpackToken(mySegments.getSegmentData(mySegmentIndex));
+      return unpackToken(readSegment(mySegments::getSegmentData));
     }
 
     @Override
     public void advance() {
-      mySegmentIndex++;
+      move(1);
     }
 
     @Override
     public void retreat() {
-      mySegmentIndex--;
+      move(-1);
     }
 
     @Override
     public boolean atEnd() {
-      return mySegmentIndex >= mySegments.getSegmentCount() || mySegmentIndex < 0;
+      return readSegment(index -> index >= mySegments.getSegmentCount() || index < 0 ? 1 : 0) != 0;
     }
 
     @Override
     public Document getDocument() {
       return LexerEditorHighlighter.this.getDocument();
     }
+
+    private void move(int delta) {
+      int offset = readSegment(index -> {
+        int newIndex = index + delta;
+        if (newIndex < 0) return -1;
+        return newIndex < mySegments.getSegmentCount() ? mySegments.getSegmentStart(newIndex) : Integer.MAX_VALUE;
+      });
+      mySegmentIndex += delta;
+      myOffset = offset;
+    }
+
+    private int readSegment(@Nonnull IntUnaryOperator getter) {
+      long stamp = myStamp;
+      if (mySegmentsLock.validate(stamp)) {
+        try {
+          int value = getter.applyAsInt(mySegmentIndex);
+          if (mySegmentsLock.validate(stamp)) return value;
+        }
+        catch (IndexOutOfBoundsException e) {
+          if (mySegmentsLock.validate(stamp)) throw e;
+        }
+      }
+
+      // the segments have been relexed since the index was found
+      long readStamp = mySegmentsLock.readLock();
+      try {
+        if (myOffset < 0) {
+          mySegmentIndex = -1;
+        }
+        else if (myOffset > mySegments.getLastValidOffset()) {
+          mySegmentIndex = mySegments.getSegmentCount();
+        }
+        else {
+          mySegmentIndex = mySegments.findSegmentIndex(myOffset);
+        }
+        int value = getter.applyAsInt(mySegmentIndex);
+        myStamp = mySegmentsLock.tryConvertToOptimisticRead(readStamp);
+        readStamp = 0;
+        return value;
+      }
+      finally {
+        if (readStamp != 0) mySegmentsLock.unlockRead(readStamp);
+      }
+    }
   }
 
   public SegmentArrayWithData getSegments() {
@@ -74,6 +74,16 @@ public class EmptyMarkupModel implements MarkupModelEx {
                                       @Nonnull Consumer<RangeHighlighterEx> changeAttributesAction) {
   }
 
+  @Override
+  public void runInBulkUpdate(@Nonnull Runnable action) {
+    action.run();
+  }
+
+  @Override
+  public boolean isInBulkUpdate() {
+    return false;
+  }
+
   @Override
   @Nonnull
   public RangeHighlighter addLineHighlighter(int line, int layer, @javax.annotation.Nullable TextAttributes textAttributes) {
@@ -54,6 +54,7 @@ public class MarkupModelImpl extends UserDataHolderBase implements MarkupModelEx
   private final List<MarkupModelListener> myListeners = ContainerUtil.createLockFreeCopyOnWriteList();
   private final RangeHighlighterTree myHighlighterTree;          // this tree holds regular highlighters with target = HighlighterTargetArea.EXACT_RANGE
   private final RangeHighlighterTree myHighlighterTreeForLines;  // this tree holds line range highlighters with target = HighlighterTargetArea.LINES_IN_RANGE
+  private int myBulkUpdateDepth; // accessed in EDT only
 
   MarkupModelImpl(@Nonnull DocumentEx document) {
     myDocument = document;
@@ -137,6 +138,31 @@ public class MarkupModelImpl extends UserDataHolderBase implements MarkupModelEx
     return highlighter;
   }
 
+  @Override
+  public void runInBulkUpdate(@Nonnull Runnable action) {
+    ApplicationManager.getApplication().assertIsDispatchThread();
+    if (myBulkUpdateDepth++ == 0) {
+      for (MarkupModelListener listener : myListeners) {
+        listener.bulkUpdateStarted();
+      }
+    }
+    try {
+      action.run();
+    }
+    finally {
+      if (--myBulkUpdateDepth == 0) {
+        for (MarkupModelListener listener : myListeners) {
+          listener.bulkUpdateFinished();
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isInBulkUpdate() {
+    return myBulkUpdateDepth > 0;
+  }
+
   @Override
   public void changeAttributesInBatch(@Nonnull RangeHighlighterEx highlighter,
                                       @Nonnull Consumer<RangeHighlighterEx> changeAttributesAction) {
@@ -29,6 +29,13 @@ class RangeHighlighterTree extends RangeMarkerTree<RangeHighlighterEx> {
     myMarkupModel = markupModel;
   }
 
+  // highlighters are strongly referenced by the tree anyway, so the snapshot doesn't prolong their life;
+  // it lets the painter and background highlighting readers iterate without contending with the EDT writers
+  @Override
+  protected boolean isSnapshotEnabled() {
+    return true;
+  }
+
   @Override
   protected int compareEqualStartIntervals(@Nonnull IntervalNode<RangeHighlighterEx> i1, @Nonnull IntervalNode<RangeHighlighterEx> i2) {
     RHNode o1 = (RHNode)i1;
@@ -29,6 +29,17 @@ public interface MarkupModelListener extends EventListener {
 
   void attributesChanged(@Nonnull RangeHighlighterEx highlighter, boolean renderersChanged, boolean fontStyleChanged);
 
+  /**
+   * Called before a batch of highlighter changes (see {@link com.intellij.openapi.editor.ex.MarkupModelEx#runInBulkUpdate(Runnable)}).
+   * Per-highlighter events are still fired during the batch, so listeners may postpone expensive work (repaint, relayout)
+   * until {@link #bulkUpdateFinished()}. Bulk updates can be nested.
+   */
+  default void bulkUpdateStarted() {
+  }
+
+  default void bulkUpdateFinished() {
+  }
+
   abstract class Adapter implements MarkupModelListener {
     @Override
     public void afterAdded(@Nonnull RangeHighlighterEx highlighter) {
@@ -46,6 +46,7 @@ public class ExtensionPointImpl<T> implements ExtensionPoint<T> {
   private final Kind myKind;
 
   private final List<T> myExtensions = new ArrayList<T>();
+  // immutable snapshot of myExtensions, or null when it has to be rebuilt; never modified in place, readers don't take the lock
   private volatile T[] myExtensionsCache;
 
   private final ExtensionsAreaImpl myOwner;
@@ -154,7 +155,7 @@ public class ExtensionPointImpl<T> implements ExtensionPoint<T> {
     myLoadedAdapters.add(index, adapter);
 
     if (runNotifications) {
-      clearCache();
+      addToCache(extension, index);
 
       if (!adapter.isNotificationSent()) {
         if (extension instanceof Extension) {
@@ -299,7 +300,7 @@ public class ExtensionPointImpl<T> implements ExtensionPoint<T> {
 
     myExtensions.remove(index);
     myLoadedAdapters.remove(index);
-    clearCache();
+    removeFromCache(index);
 
     notifyListenersOnRemove(extension, pluginDescriptor);
 
@@ -423,6 +424,31 @@ public class ExtensionPointImpl<T> implements ExtensionPoint<T> {
     myExtensionsCache = null;
   }
 
+  // Copy-on-write update of the snapshot after a single extension was inserted into myExtensions at the index,
+  // so that registering extensions at runtime doesn't make every reader wait for the lock to rebuild the whole array.
+  private void addToCache(@Nonnull T extension, int index) {
+    T[] cache = myExtensionsCache;
+    if (cache == null || cache.length != myExtensions.size() - 1) {
+      clearCache();
+      return;
+    }
+    T[] result = Arrays.copyOf(cache, cache.length + 1);
+    System.arraycopy(cache, index, result, index + 1, cache.length - index);
+    result[index] = extension;
+    myExtensionsCache = result;
+  }
+
+  private void removeFromCache(int index) {
+    T[] cache = myExtensionsCache;
+    if (cache == null || cache.length != myExtensions.size() + 1) {
+      clearCache();
+      return;
+    }
+    T[] result = Arrays.copyOf(cache, cache.length - 1);
+    System.arraycopy(cache, index + 1, result, index, cache.length - index - 1);
+    myExtensionsCache = result;
+  }
+
   synchronized boolean unregisterExtensionAdapter(@Nonnull ExtensionComponentAdapter adapter) {
     try {
       if (myExtensionAdapters.remove(adapter)) {
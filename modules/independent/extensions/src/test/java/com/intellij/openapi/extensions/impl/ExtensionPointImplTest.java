@@ -20,6 +20,9 @@ import junit.framework.TestCase;
 import javax.annotation.Nonnull;
 import org.picocontainer.defaults.DefaultPicoContainer;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * @author AKireyev
  */
@@ -139,4 +142,61 @@ public class ExtensionPointImplTest extends TestCase {
     });
     assertTrue(added[0]);
   }
+
+  public void testSnapshotIsCopiedOnRegistration() {
+    ExtensionPointImpl extensionPoint = buildExtensionPoint();
+    extensionPoint.registerExtension(new Integer(1));
+    extensionPoint.registerExtension(new Integer(3), LoadingOrder.LAST);
+    Object[] before = extensionPoint.getExtensions();
+
+    extensionPoint.registerExtension(new Integer(2));
+    Object[] after = extensionPoint.getExtensions();
+    assertEquals(2, before.length);
+    assertEquals(Integer[].class, after.getClass());
+    assertEquals(3, after.length);
+    assertEquals(new Integer(1), after[0]);
+    assertEquals(new Integer(2), after[1]);
+    assertEquals(new Integer(3), after[2]);
+
+    extensionPoint.unregisterExtension(new Integer(1));
+    Object[] removed = extensionPoint.getExtensions();
+    assertEquals(3, after.length);
+    assertEquals(2, removed.length);
+    assertEquals(new Integer(2), removed[0]);
+    assertEquals(new Integer(3), removed[1]);
+  }
+
+  public void testConcurrentReadsSeeConsistentSnapshots() throws Exception {
+    final ExtensionPointImpl extensionPoint = buildExtensionPoint();
+    final int count = 1000;
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<String> error = new AtomicReference<String>();
+    Thread[] readers = new Thread[4];
+    for (int i = 0; i < readers.length; i++) {
+      readers[i] = new Thread() {
+        @Override
+        public void run() {
+          int lastLength = 0;
+          while (!done.get()) {
+            Object[] extensions = extensionPoint.getExtensions();
+            if (extensions.length < lastLength) error.set("Snapshot shrank from " + lastLength + " to " + extensions.length);
+            for (int j = 0; j < extensions.length; j++) {
+              if (!new Integer(j).equals(extensions[j])) error.set("Unexpected " + extensions[j] + " at " + j);
+            }
+            lastLength = extensions.length;
+          }
+        }
+      };
+      readers[i].start();
+    }
+    for (int i = 0; i < count; i++) {
+      extensionPoint.registerExtension(new Integer(i));
+    }
+    done.set(true);
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    assertNull(error.get());
+    assertEquals(count, extensionPoint.getExtensions().length);
+  }
 }
@@ -328,6 +328,20 @@ public class LowLevelSearchUtil {
     return offsets.toNativeArray();
   }
 
+  /**
+   * Same check as {@link #getTextOccurrences} but stops at the first occurrence and doesn't cache anything,
+   * for texts loaded just to find out whether the file is worth building PSI for.
+   */
+  static boolean containsTextOccurrence(@Nonnull CharSequence text, @Nonnull StringSearcher searcher) {
+    for (int index = 0; index < text.length(); index++) {
+      //noinspection AssignmentToForLoopParameter
+      index = searcher.scan(text, index, text.length());
+      if (index < 0) return false;
+      if (checkJavaIdentifier(text, 0, text.length(), searcher, index)) return true;
+    }
+    return false;
+  }
+
   private static boolean checkJavaIdentifier(@Nonnull CharSequence text, int startOffset, int endOffset, @Nonnull StringSearcher searcher, int index) {
     if (!searcher.isJavaIdentifier()) {
       return true;
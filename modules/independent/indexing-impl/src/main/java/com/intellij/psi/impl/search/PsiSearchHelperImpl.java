@@ -26,6 +26,7 @@ import com.intellij.openapi.application.ex.ApplicationEx;
 import com.intellij.openapi.application.ex.ApplicationUtil;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
 import com.intellij.openapi.progress.EmptyProgressIndicator;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
@@ -42,10 +43,12 @@ import com.intellij.psi.impl.PsiManagerEx;
 import com.intellij.psi.impl.cache.CacheManager;
 import com.intellij.psi.impl.cache.impl.id.IdIndex;
 import com.intellij.psi.impl.cache.impl.id.IdIndexEntry;
+import com.intellij.psi.impl.file.impl.FileManager;
 import com.intellij.psi.search.*;
 import com.intellij.psi.util.PsiUtilCore;
 import com.intellij.usageView.UsageInfo;
 import com.intellij.usageView.UsageInfoFactory;
+import com.intellij.util.Function;
 import com.intellij.util.Processor;
 import com.intellij.util.Processors;
 import com.intellij.util.SmartList;
@@ -264,24 +267,27 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
       progress.setText(PsiBundle.message("psi.search.for.word.progress", text));
 
       final Processor<PsiElement> localProcessor = localProcessor(processor, progress, searcher);
+      final List<StringSearcher> searchers = Collections.singletonList(searcher);
+      Function<VirtualFile, Collection<StringSearcher>> searchersForFile = file -> searchers;
       if (containerName != null) {
         List<VirtualFile> intersectionWithContainerFiles = new ArrayList<>();
         // intersectionWithContainerFiles holds files containing words from both `text` and `containerName`
         getFilesWithText(scope, searchContext, caseSensitively, text+" "+containerName, intersectionWithContainerFiles);
         if (!intersectionWithContainerFiles.isEmpty()) {
           int totalSize = fileSet.size();
-          result = processPsiFileRoots(intersectionWithContainerFiles, totalSize, 0, progress, localProcessor);
+          result = processPsiFileRoots(intersectionWithContainerFiles, totalSize, 0, progress, searchersForFile, localProcessor);
 
           if (result) {
             fileSet.removeAll(intersectionWithContainerFiles);
             if (!fileSet.isEmpty()) {
-              result = processPsiFileRoots(new ArrayList<>(fileSet), totalSize, intersectionWithContainerFiles.size(), progress, localProcessor);
+              result = processPsiFileRoots(new ArrayList<>(fileSet), totalSize, intersectionWithContainerFiles.size(), progress, searchersForFile,
+                                           localProcessor);
             }
           }
           return result;
         }
       }
-      result = fileSet.isEmpty() || processPsiFileRoots(new ArrayList<>(fileSet), fileSet.size(), 0, progress, localProcessor);
+      result = fileSet.isEmpty() || processPsiFileRoots(new ArrayList<>(fileSet), fileSet.size(), 0, progress, searchersForFile, localProcessor);
     }
     finally {
       progress.popState();
@@ -294,21 +300,24 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
    * @param totalSize the number of files to scan in both passes. Can be different from {@code files.size()} in case of
    *                  two-pass scan, where we first scan files containing container name and then all the rest files.
    * @param alreadyProcessedFiles the number of files scanned in previous pass.
+   * @param searchersForFile the searchers {@code localProcessor} runs for the file. A file whose text has no occurrence for any of them
+   *                         is skipped without building its PSI.
    * @return true if completed
    */
   private boolean processPsiFileRoots(@Nonnull List<VirtualFile> files,
                                       final int totalSize,
                                       int alreadyProcessedFiles,
                                       @Nonnull final ProgressIndicator progress,
+                                      @Nonnull final Function<VirtualFile, Collection<StringSearcher>> searchersForFile,
                                       @Nonnull final Processor<? super PsiFile> localProcessor) {
     myManager.startBatchFilesProcessingMode();
     try {
       final AtomicInteger counter = new AtomicInteger(alreadyProcessedFiles);
       final AtomicBoolean canceled = new AtomicBoolean(false);
 
-      return processFilesConcurrentlyDespiteWriteActions(myManager.getProject(), files, progress, vfile -> {
+      return processFilesConcurrentlyDespiteWriteActions(myManager.getProject(), loadedFilesFirst(files), progress, vfile -> {
         TooManyUsagesStatus.getFrom(progress).pauseProcessingIfTooManyUsages();
-        processVirtualFile(vfile, progress, localProcessor, canceled);
+        processVirtualFile(vfile, progress, searchersForFile.fun(vfile), localProcessor, canceled);
         if (progress.isRunning()) {
           double fraction = (double)counter.incrementAndGet() / totalSize;
           progress.setFraction(fraction);
@@ -375,14 +384,50 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
     return true;
   }
 
+  // Files with a document or PSI already loaded are the cheapest to search, and the ones the user is looking at. Process them first.
+  @Nonnull
+  private List<VirtualFile> loadedFilesFirst(@Nonnull final List<VirtualFile> files) {
+    final FileDocumentManager documentManager = FileDocumentManager.getInstance();
+    final List<VirtualFile> loaded = new ArrayList<>();
+    final List<VirtualFile> rest = new ArrayList<>(files.size());
+    try {
+      ApplicationUtil.tryRunReadAction(() -> {
+        FileManager fileManager = myManager.getFileManager();
+        for (VirtualFile file : files) {
+          boolean isLoaded = documentManager.getCachedDocument(file) != null || fileManager.findCachedViewProvider(file) != null;
+          (isLoaded ? loaded : rest).add(file);
+        }
+      });
+    }
+    catch (ApplicationUtil.CannotRunReadActionException e) {
+      return files;
+    }
+    if (loaded.isEmpty() || rest.isEmpty()) return files;
+    loaded.addAll(rest);
+    return loaded;
+  }
+
   private void processVirtualFile(@Nonnull final VirtualFile vfile,
                                   @Nonnull final ProgressIndicator progress,
+                                  @Nonnull Collection<StringSearcher> searchers,
                                   @Nonnull final Processor<? super PsiFile> localProcessor,
                                   @Nonnull final AtomicBoolean canceled) throws ApplicationUtil.CannotRunReadActionException {
+    boolean contentLoaded = false;
+    if (!searchers.isEmpty() && canCheckTextWithoutPsi(vfile)) {
+      CharSequence text = loadTextWithoutPsi(vfile);
+      if (text != null) {
+        progress.checkCanceled();
+        if (!containsOccurrence(text, searchers)) {
+          // the index only knows the words are there, maybe in another case or not as a whole identifier
+          return;
+        }
+        contentLoaded = true;
+      }
+    }
     final PsiFile file = ApplicationUtil.tryRunReadAction(() -> vfile.isValid() ? myManager.findFile(vfile) : null);
     if (file != null && !(file instanceof PsiBinaryFile)) {
       // load contents outside read action
-      if (FileDocumentManager.getInstance().getCachedDocument(vfile) == null) {
+      if (!contentLoaded && FileDocumentManager.getInstance().getCachedDocument(vfile) == null) {
         // cache bytes in vfs
         try {
           vfile.contentsToByteArray();
@@ -415,6 +460,32 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
     }
   }
 
+  // PSI text is the file content unless there's a document (possibly uncommitted) or the PSI isn't built from the text at all
+  private static boolean canCheckTextWithoutPsi(@Nonnull VirtualFile vfile) {
+    return vfile.isValid() &&
+           !vfile.isDirectory() &&
+           !vfile.getFileType().isBinary() &&
+           !SingleRootFileViewProvider.isTooLargeForIntelligence(vfile) &&
+           FileDocumentManager.getInstance().getCachedDocument(vfile) == null;
+  }
+
+  @Nullable
+  private static CharSequence loadTextWithoutPsi(@Nonnull VirtualFile vfile) {
+    try {
+      return LoadTextUtil.getTextByBinaryPresentation(vfile.contentsToByteArray(), vfile, false, false);
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static boolean containsOccurrence(@Nonnull CharSequence text, @Nonnull Collection<StringSearcher> searchers) {
+    for (StringSearcher searcher : searchers) {
+      if (LowLevelSearchUtil.containsTextOccurrence(text, searcher)) return true;
+    }
+    return false;
+  }
+
   private void getFilesWithText(@Nonnull GlobalSearchScope scope,
                                 final short searchContext,
                                 final boolean caseSensitively,
@@ -694,8 +765,14 @@ public class PsiSearchHelperImpl implements PsiSearchHelper {
                                     int totalSize,
                                     int alreadyProcessedFiles) {
     List<VirtualFile> files = new ArrayList<>(candidateFiles.keySet());
+    final Map<RequestWithProcessor, StringSearcher> searchers = new THashMap<>();
+    for (RequestWithProcessor singleRequest : localProcessors.keySet()) {
+      PsiSearchRequest primitive = singleRequest.request;
+      searchers.put(singleRequest, new StringSearcher(primitive.word, primitive.caseSensitive, true, false));
+    }
+    Function<VirtualFile, Collection<StringSearcher>> searchersForFile = file -> ContainerUtil.map(candidateFiles.get(file), searchers::get);
 
-    return processPsiFileRoots(files, totalSize, alreadyProcessedFiles, progress, psiRoot -> {
+    return processPsiFileRoots(files, totalSize, alreadyProcessedFiles, progress, searchersForFile, psiRoot -> {
       final VirtualFile vfile = psiRoot.getVirtualFile();
       for (final RequestWithProcessor singleRequest : candidateFiles.get(vfile)) {
         Processor<PsiElement> localProcessor = localProcessors.get(singleRequest);
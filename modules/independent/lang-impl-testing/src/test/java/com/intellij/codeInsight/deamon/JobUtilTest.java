@@ -17,6 +17,7 @@ package com.intellij.codeInsight.deamon;
 
 import com.intellij.codeInsight.daemon.impl.DaemonProgressIndicator;
 import com.intellij.concurrency.JobLauncher;
+import com.intellij.concurrency.JobLauncherStatistics;
 import com.intellij.concurrency.JobSchedulerImpl;
 import com.intellij.concurrency.SensitiveProgressWrapper;
 import com.intellij.openapi.application.ApplicationManager;
@@ -148,6 +149,36 @@ public class JobUtilTest extends MockApplicationTestCase {
     }
   }
 
+  public void testNestedCallsAreRecorded() throws Exception {
+    if (JobSchedulerImpl.getJobPoolParallelism() <= 1) return; // everything is processed in the calling thread then
+    final List<String> list = Collections.nCopies(100, null);
+    // the statistics are shared by the whole application, so only the growth caused by this test is checked
+    JobLauncherStatistics statistics = JobLauncherStatistics.getInstance();
+    long calls = statistics.getCalls();
+    long items = statistics.getItems();
+    long nestedCalls = statistics.getNestedCalls();
+    COUNT.set(0);
+    JobLauncher.getInstance().invokeConcurrentlyUnderProgress(list, null, false, new Processor<String>() {
+      @Override
+      public boolean process(String name) {
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(list, null, false, new Processor<String>() {
+          @Override
+          public boolean process(String name) {
+            busySleep(1);
+            return true;
+          }
+        });
+        return true;
+      }
+    });
+    assertEquals(list.size() * list.size(), COUNT.get());
+    assertTrue(statistics.toString(), statistics.getCalls() - calls >= list.size() + 1);
+    assertTrue(statistics.toString(), statistics.getItems() - items >= list.size() * list.size() + list.size());
+    // the outer items are processed by pool threads too, the inner calls made there must have started in place
+    assertTrue(statistics.toString(), statistics.getNestedCalls() > nestedCalls);
+    assertTrue(statistics.toString(), statistics.getSteals() <= statistics.getForks());
+  }
+
   public void testCorrectProgressAndReadAction() throws Throwable {
     checkProgressAndReadAction(Collections.singletonList(null), new DaemonProgressIndicator(), true);
     checkProgressAndReadAction(Collections.singletonList(null), new DaemonProgressIndicator(), false);
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.openapi.application.impl;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.util.TimeoutUtil;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class YieldingReadActionExecutorTest extends LightPlatformTestCase {
+  private static final long TIMEOUT_MS = 10000;
+
+  public void testRunningTaskYieldsToWriteActionAndIsRestarted() throws Exception {
+    YieldingReadActionExecutor executor = ((ApplicationImpl)ApplicationManager.getApplication()).getYieldingReadActionExecutor();
+    AtomicInteger runs = new AtomicInteger();
+    AtomicBoolean firstRunCanceled = new AtomicBoolean();
+    CountDownLatch firstRunStarted = new CountDownLatch(1);
+
+    CompletableFuture<Void> future = executor.submit(() -> {
+      if (runs.incrementAndGet() > 1) return;
+      firstRunStarted.countDown();
+      long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+      try {
+        // without the cancellation the write action below would wait for all this time
+        while (System.currentTimeMillis() < deadline) {
+          ProgressManager.checkCanceled();
+          TimeoutUtil.sleep(1);
+        }
+      }
+      catch (ProcessCanceledException e) {
+        firstRunCanceled.set(true);
+        throw e;
+      }
+    });
+
+    assertTrue(firstRunStarted.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    ApplicationManager.getApplication().runWriteAction(() -> assertFalse(future.isDone()));
+
+    future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    assertTrue(firstRunCanceled.get());
+    assertEquals(2, runs.get());
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.openapi.editor.ex.util;
+
+import com.intellij.lang.Language;
+import com.intellij.lexer.Lexer;
+import com.intellij.lexer.LexerBase;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.editor.colors.EditorColorsManager;
+import com.intellij.openapi.editor.colors.TextAttributesKey;
+import com.intellij.openapi.editor.highlighter.HighlighterClient;
+import com.intellij.openapi.editor.highlighter.HighlighterIterator;
+import com.intellij.openapi.fileTypes.SyntaxHighlighterBase;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.util.ui.UIUtil;
+
+import javax.annotation.Nonnull;
+
+public class LexerEditorHighlighterTest extends LightPlatformTestCase {
+  private static final IElementType TEXT = new IElementType("TEXT", Language.ANY);
+  private static final IElementType STRING = new IElementType("STRING", Language.ANY);
+  private static final IElementType QUOTE = new IElementType("QUOTE", Language.ANY);
+
+  public void testDeferredRelexUpdatesSegmentsAfterLargeChange() {
+    // an unpaired quote at the start swaps strings and text till the end of the document, far more tokens than are relexed at once
+    final Document document = EditorFactory.getInstance().createDocument(StringUtil.repeat("x\"y\"", 30000));
+    LexerEditorHighlighter highlighter = createHighlighter(document);
+    highlighter.setDeferRelexInTests(true);
+    document.addDocumentListener(highlighter);
+
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> document.insertString(0, "\""));
+    assertTrue("relex hasn't been deferred", findMismatch(createHighlighter(document), highlighter) > 0);
+
+    UIUtil.dispatchAllInvocationEvents();
+    assertEquals(-1, findMismatch(createHighlighter(document), highlighter));
+  }
+
+  public void testIteratorFindsItsTokenAgainAfterDeferredRelex() {
+    final Document document = EditorFactory.getInstance().createDocument(StringUtil.repeat("x\"y\"", 30000));
+    LexerEditorHighlighter highlighter = createHighlighter(document);
+    highlighter.setDeferRelexInTests(true);
+    document.addDocumentListener(highlighter);
+
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> document.insertString(0, "\""));
+    int offset = document.getTextLength() - 2;
+    HighlighterIterator iterator = highlighter.createIterator(offset);
+    assertEquals(offset, iterator.getStart());
+
+    UIUtil.dispatchAllInvocationEvents();
+    HighlighterIterator expected = createHighlighter(document).createIterator(offset);
+    assertEquals(expected.getStart(), iterator.getStart());
+    assertEquals(expected.getTokenType(), iterator.getTokenType());
+    iterator.advance();
+    expected.advance();
+    assertEquals(expected.getStart(), iterator.getStart());
+    assertEquals(expected.getTokenType(), iterator.getTokenType());
+  }
+
+  @Nonnull
+  private static LexerEditorHighlighter createHighlighter(@Nonnull final Document document) {
+    LexerEditorHighlighter highlighter = new LexerEditorHighlighter(new SyntaxHighlighterBase() {
+      @Nonnull
+      @Override
+      public Lexer getHighlightingLexer() {
+        return new QuoteLexer();
+      }
+
+      @Nonnull
+      @Override
+      public TextAttributesKey[] getTokenHighlights(IElementType tokenType) {
+        return EMPTY;
+      }
+    }, EditorColorsManager.getInstance().getGlobalScheme());
+    highlighter.setEditor(new HighlighterClient() {
+      @Override
+      public Project getProject() {
+        return ourProject;
+      }
+
+      @Override
+      public void repaint(int start, int end) {
+      }
+
+      @Override
+      public Document getDocument() {
+        return document;
+      }
+    });
+    highlighter.setText(document.getImmutableCharSequence());
+    return highlighter;
+  }
+
+  // offset of the first token which differs, -1 if there is none
+  private static int findMismatch(@Nonnull LexerEditorHighlighter expected, @Nonnull LexerEditorHighlighter actual) {
+    HighlighterIterator expectedIterator = expected.createIterator(0);
+    HighlighterIterator actualIterator = actual.createIterator(0);
+    while (!expectedIterator.atEnd() && !actualIterator.atEnd()) {
+      if (expectedIterator.getStart() != actualIterator.getStart() ||
+          expectedIterator.getEnd() != actualIterator.getEnd() ||
+          expectedIterator.getTokenType() != actualIterator.getTokenType()) {
+        return expectedIterator.getStart();
+      }
+      expectedIterator.advance();
+      actualIterator.advance();
+    }
+    return expectedIterator.atEnd() && actualIterator.atEnd() ? -1 : expectedIterator.getStart();
+  }
+
+  // a token per character, characters between quotes are strings; the state is 1 inside a string
+  private static class QuoteLexer extends LexerBase {
+    private CharSequence myBuffer;
+    private int myEnd;
+    private int myTokenStart;
+    private boolean myInString;
+
+    @Override
+    public void start(@Nonnull CharSequence buffer, int startOffset, int endOffset, int initialState) {
+      myBuffer = buffer;
+      myEnd = endOffset;
+      myTokenStart = startOffset;
+      myInString = initialState == 1;
+    }
+
+    @Override
+    public int getState() {
+      return myInString ? 1 : 0;
+    }
+
+    @Override
+    public IElementType getTokenType() {
+      if (myTokenStart >= myEnd) return null;
+      if (myBuffer.charAt(myTokenStart) == '"') return QUOTE;
+      return myInString ? STRING : TEXT;
+    }
+
+    @Override
+    public int getTokenStart() {
+      return myTokenStart;
+    }
+
+    @Override
+    public int getTokenEnd() {
+      return myTokenStart + 1;
+    }
+
+    @Override
+    public void advance() {
+      if (myBuffer.charAt(myTokenStart) == '"') myInString = !myInString;
+      myTokenStart++;
+    }
+
+    @Nonnull
+    @Override
+    public CharSequence getBufferSequence() {
+      return myBuffer;
+    }
+
+    @Override
+    public int getBufferEnd() {
+      return myEnd;
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.intellij.openapi.editor.impl;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.Result;
 import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.command.impl.UndoManagerImpl;
@@ -43,12 +44,17 @@ import com.intellij.testFramework.LightPlatformTestCase;
 import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.Timings;
 import com.intellij.util.CommonProcessors;
+import com.intellij.util.Processor;
 import com.intellij.util.ThrowableRunnable;
+import com.intellij.util.TimeoutUtil;
 import org.jetbrains.annotations.NonNls;
 import javax.annotation.Nonnull;
 import consulo.annotations.RequiredDispatchThread;
 
 import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author mike
@@ -1122,4 +1128,97 @@ public class RangeMarkerTest extends LightPlatformTestCase {
     markupModel.processRangeHighlightersOverlappingWith(2, 9, new CommonProcessors.CollectProcessor<RangeHighlighter>(list));
     assertEquals(Arrays.asList(line, exact), list);
   }
+
+  public void testRangeHighlighterSnapshotIsInSyncWithTree() throws Exception {
+    Document document = EditorFactory.getInstance().createDocument(StringUtil.repeatSymbol('x', 100));
+    final MarkupModelEx markupModel = (MarkupModelEx)DocumentMarkupModel.forDocument(document, ourProject, true);
+    RangeHighlighter h1 = markupModel.addRangeHighlighter(10, 20, 0, null, HighlighterTargetArea.EXACT_RANGE);
+    RangeHighlighter h2 = markupModel.addRangeHighlighter(15, 30, 1, null, HighlighterTargetArea.EXACT_RANGE);
+    RangeHighlighter h3 = markupModel.addRangeHighlighter(50, 60, 0, null, HighlighterTargetArea.EXACT_RANGE);
+
+    // the first request after modification goes to the tree, the second one builds the snapshot
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Arrays.asList(h2, h1), collectOverlapping(markupModel, 18, 25));
+      assertEquals(Arrays.asList(h3), collectOverlapping(markupModel, 35, 55));
+    }
+
+    document.insertString(0, "yyyyy");
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Arrays.asList(h2, h1), collectOverlapping(markupModel, 23, 25));
+      assertEquals(Arrays.asList(h1), collectOverlapping(markupModel, 15, 18));
+      assertEmpty(collectOverlapping(markupModel, 36, 54));
+    }
+
+    markupModel.removeHighlighter(h2);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Arrays.asList(h1), collectOverlapping(markupModel, 23, 25));
+    }
+  }
+
+  @Nonnull
+  private static List<RangeHighlighter> collectOverlapping(@Nonnull MarkupModelEx markupModel, int start, int end) {
+    List<RangeHighlighter> list = new ArrayList<RangeHighlighter>();
+    markupModel.processRangeHighlightersOverlappingWith(start, end, new CommonProcessors.CollectProcessor<RangeHighlighter>(list));
+    return list;
+  }
+
+  public void testRangeHighlighterConcurrentReadersStress_NoCommand() throws Exception {
+    final int N = 20000;
+    Document document = EditorFactory.getInstance().createDocument(StringUtil.repeatSymbol('x', 2 * N));
+    final MarkupModelEx markupModel = (MarkupModelEx)DocumentMarkupModel.forDocument(document, ourProject, true);
+    List<RangeHighlighter> highlighters = new ArrayList<RangeHighlighter>();
+    for (int i = 0; i < N; i++) {
+      highlighters.add(markupModel.addRangeHighlighter(2 * i, 2 * i + 1, 0, null, HighlighterTargetArea.EXACT_RANGE));
+    }
+
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicLong reads = new AtomicLong();
+    List<Future<?>> readers = new ArrayList<Future<?>>();
+    for (int t = 0; t < 4; t++) {
+      readers.add(ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+        @Override
+        public void run() {
+          Random random = new Random();
+          while (!stop.get()) {
+            int start = random.nextInt(2 * N);
+            final int[] prevStart = {-1};
+            markupModel.processRangeHighlightersOverlappingWith(start, start + 100, new Processor<RangeHighlighterEx>() {
+              @Override
+              public boolean process(RangeHighlighterEx highlighter) {
+                int affectedStart = highlighter.getAffectedAreaStartOffset();
+                assertTrue(prevStart[0] <= affectedStart);
+                prevStart[0] = affectedStart;
+                return true;
+              }
+            });
+            reads.incrementAndGet();
+          }
+        }
+      }));
+    }
+
+    Random random = new Random();
+    for (int i = 0; i < 2000; i++) {
+      int index = random.nextInt(highlighters.size());
+      RangeHighlighter removed = highlighters.remove(index);
+      markupModel.removeHighlighter(removed);
+      int offset = 2 * random.nextInt(N);
+      highlighters.add(markupModel.addRangeHighlighter(offset, offset + 1, 0, null, HighlighterTargetArea.EXACT_RANGE));
+      // let readers catch up so that snapshots get rebuilt in between
+      if (i % 100 == 0) {
+        TimeoutUtil.sleep(10);
+      }
+    }
+    TimeoutUtil.sleep(200);
+    stop.set(true);
+    for (Future<?> reader : readers) {
+      reader.get();
+    }
+    assertTrue("readers haven't run concurrently with writes", reads.get() > 0);
+
+    assertEquals(N, markupModel.getAllHighlighters().length);
+    for (RangeHighlighter highlighter : highlighters) {
+      assertTrue(markupModel.containsHighlighter(highlighter));
+    }
+  }
 }
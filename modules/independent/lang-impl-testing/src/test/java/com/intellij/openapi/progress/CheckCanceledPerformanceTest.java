@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.openapi.progress;
+
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.util.ThrowableRunnable;
+import consulo.testFramework.MockApplicationTestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Overhead of {@link ProgressManager#checkCanceled()} in a tight loop under a live indicator,
+ * while another thread runs under a canceled one (e.g. a restarted highlighting pass which hasn't noticed the cancellation yet).
+ */
+public class CheckCanceledPerformanceTest extends MockApplicationTestCase {
+  private static final int CALLS = 100000000;
+
+  public void testCheckCanceledWhileAnotherThreadIsCanceled() throws Exception {
+    ProgressManager.getInstance(); // initialize the cached instance checkCanceled() uses
+
+    final CountDownLatch canceledThreadStarted = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicBoolean canceledThreadThrew = new AtomicBoolean();
+    final ProgressIndicatorBase canceledIndicator = new ProgressIndicatorBase();
+    canceledIndicator.cancel();
+    Thread canceledThread = new Thread("canceled") {
+      @Override
+      public void run() {
+        ProgressManager.getInstance().executeProcessUnderProgress(new Runnable() {
+          @Override
+          public void run() {
+            canceledThreadStarted.countDown();
+            try {
+              release.await();
+              ProgressManager.checkCanceled();
+            }
+            catch (ProcessCanceledException e) {
+              canceledThreadThrew.set(true);
+            }
+            catch (InterruptedException ignored) {
+            }
+          }
+        }, canceledIndicator);
+      }
+    };
+    canceledThread.start();
+    try {
+      assertTrue(canceledThreadStarted.await(10, TimeUnit.SECONDS));
+
+      ProgressManager.getInstance().executeProcessUnderProgress(new Runnable() {
+        @Override
+        public void run() {
+          PlatformTestUtil.startPerformanceTest("checkCanceled() under a live indicator", 1000, new ThrowableRunnable() {
+            @Override
+            public void run() throws Exception {
+              for (int i = 0; i < CALLS; i++) {
+                ProgressManager.checkCanceled();
+              }
+            }
+          }).assertTiming();
+        }
+      }, new ProgressIndicatorBase());
+    }
+    finally {
+      release.countDown();
+      canceledThread.join();
+    }
+    assertTrue(canceledThreadThrew.get());
+  }
+}
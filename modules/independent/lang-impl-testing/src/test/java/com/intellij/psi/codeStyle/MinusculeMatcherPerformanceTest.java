@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.psi.codeStyle;
+
+import com.intellij.openapi.util.TextRange;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.util.ThrowableRunnable;
+import com.intellij.util.containers.FList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Goto-like matching over a generated corpus of symbol names: most names are rejected, some are matched and scored.
+ */
+public class MinusculeMatcherPerformanceTest {
+  private static final String[] WORDS = {"Abstract", "Action", "Base", "Cache", "Component", "Default", "Editor", "Element", "Factory",
+          "File", "Handler", "Impl", "Index", "Listener", "Manager", "Model", "Node", "Processor", "Provider", "Psi", "Reference", "Service",
+          "Stub", "Tree", "Util", "View", "Visitor", "Wrapper", "XML", "2"};
+  private static final String[] PATTERNS = {"psiel", "*Manager", "FBI", "edCoImpl", "stubIndex", "DeFa", "*cache", "XMLTV", "a b c", "Impl "};
+
+  private static List<String> generateNames(int count) {
+    Random random = new Random(42);
+    List<String> names = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      StringBuilder name = new StringBuilder();
+      int words = 1 + random.nextInt(4);
+      for (int j = 0; j < words; j++) {
+        name.append(WORDS[random.nextInt(WORDS.length)]);
+      }
+      if (random.nextInt(10) == 0) {
+        name.append('_').append(random.nextInt(100));
+      }
+      names.add(name.toString());
+    }
+    return names;
+  }
+
+  @Test
+  public void testScoringMatchedFragmentsIsSameAsSeparateCalls() {
+    for (String pattern : PATTERNS) {
+      MinusculeMatcher matcher = NameUtil.buildMatcher(pattern, NameUtil.MatchingCaseSensitivity.NONE);
+      for (String name : generateNames(2000)) {
+        FList<TextRange> fragments = matcher.matchingFragments(name);
+        assertEquals(matcher.matches(name), fragments != null);
+        if (fragments != null) {
+          assertEquals(name, matcher.matchingDegree(name), matcher.matchingDegree(name, false, fragments));
+          assertEquals(name, matcher.isStartMatch(name), MinusculeMatcher.isStartMatch(fragments));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMatchingPerformance() {
+    final List<String> names = generateNames(200000);
+    final MinusculeMatcher[] matchers = new MinusculeMatcher[PATTERNS.length];
+    for (int i = 0; i < PATTERNS.length; i++) {
+      matchers[i] = NameUtil.buildMatcher(PATTERNS[i], NameUtil.MatchingCaseSensitivity.NONE);
+    }
+    final int[] matched = new int[1];
+    PlatformTestUtil.startPerformanceTest("MinusculeMatcher on symbol names", 3000, new ThrowableRunnable() {
+      @Override
+      public void run() throws Exception {
+        matched[0] = 0;
+        for (MinusculeMatcher matcher : matchers) {
+          for (String name : names) {
+            FList<TextRange> fragments = matcher.matchingFragments(name);
+            if (fragments != null && matcher.matchingDegree(name, false, fragments) != Integer.MIN_VALUE) {
+              matched[0]++;
+            }
+          }
+        }
+      }
+    }).assertTiming();
+    assertTrue(matched[0] > 0);
+  }
+}
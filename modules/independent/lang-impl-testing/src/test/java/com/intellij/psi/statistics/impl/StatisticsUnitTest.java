@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.psi.statistics.impl;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class StatisticsUnitTest extends TestCase {
+  private static final String VALUE = "value";
+
+  public void testLeastRecentlyIncrementedContextIsEvicted() {
+    StatisticsUnit unit = createFullUnit();
+
+    unit.incData(context(0), VALUE);
+    unit.incData("new", VALUE);
+
+    assertEquals(2, unit.getData(context(0), VALUE));
+    assertEquals(0, unit.getData(context(1), VALUE));
+    assertEquals(1, unit.getData(context(2), VALUE));
+    assertEquals(1, unit.getData("new", VALUE));
+  }
+
+  public void testRecencyOrderSurvivesWriteAndRead() throws Exception {
+    StatisticsUnit unit = createFullUnit();
+    unit.incData(context(0), VALUE);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    unit.write(out);
+    StatisticsUnit restored = new StatisticsUnit(0);
+    restored.read(new ByteArrayInputStream(out.toByteArray()));
+    restored.incData("new", VALUE);
+
+    assertEquals(2, restored.getData(context(0), VALUE));
+    assertEquals(0, restored.getData(context(1), VALUE));
+    assertEquals(1, restored.getData(context(2), VALUE));
+  }
+
+  private static StatisticsUnit createFullUnit() {
+    StatisticsUnit unit = new StatisticsUnit(0);
+    for (int i = 0; i < StatisticsUnit.MAX_CONTEXTS; i++) {
+      unit.incData(context(i), VALUE);
+    }
+    for (int i = 0; i < StatisticsUnit.MAX_CONTEXTS; i++) {
+      assertEquals(1, unit.getData(context(i), VALUE));
+    }
+    return unit;
+  }
+
+  private static String context(int i) {
+    return "context" + i;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.util;
+
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.intellij.util.ui.UIUtil;
+import com.intellij.util.ui.update.UpdateQueueStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class AlarmEdtDispatcherTest extends LightPlatformTestCase {
+  private static final long TIMEOUT_MS = 10000;
+
+  public void testRequestsRunInFiringOrderAcrossBatchesCutByFrameBudget() {
+    Application application = ApplicationManager.getApplication();
+    List<Integer> log = new ArrayList<>();
+    List<Integer> expected = new ArrayList<>();
+    int count = 10;
+    long batches = UpdateQueueStatistics.getInstance().getEdtBatches();
+
+    for (int i = 0; i < count; i++) {
+      int index = i;
+      AlarmEdtDispatcher.dispatch(application, () -> {
+        log.add(index);
+        if (index == 0) {
+          // these fire while the batch runs, after the rest of the first ones
+          for (int j = count; j < 2 * count; j++) {
+            int laterIndex = j;
+            AlarmEdtDispatcher.dispatch(application, () -> {
+              log.add(laterIndex);
+              TimeoutUtil.sleep(AlarmEdtDispatcher.FRAME_BUDGET_MS / 2 + 1);
+            }, ModalityState.NON_MODAL);
+          }
+        }
+        TimeoutUtil.sleep(AlarmEdtDispatcher.FRAME_BUDGET_MS / 2 + 1);
+      }, ModalityState.NON_MODAL);
+    }
+    for (int i = 0; i < 2 * count; i++) {
+      expected.add(i);
+    }
+
+    UIUtil.dispatchAllInvocationEvents();
+    assertEquals(expected, log);
+    assertTrue("no batch has been cut by the frame budget", UpdateQueueStatistics.getInstance().getEdtBatches() - batches > 1);
+  }
+
+  public void testRequestRunningNestedEventLoopDoesNotLetLaterRequestsOvertakeEarlierOnes() {
+    Application application = ApplicationManager.getApplication();
+    List<String> log = new ArrayList<>();
+
+    AlarmEdtDispatcher.dispatch(application, () -> {
+      log.add("a");
+      AlarmEdtDispatcher.dispatch(application, () -> log.add("later"), ModalityState.NON_MODAL);
+      // like a modal dialog would do
+      UIUtil.dispatchAllInvocationEvents();
+      log.add("a done");
+    }, ModalityState.NON_MODAL);
+    AlarmEdtDispatcher.dispatch(application, () -> log.add("b"), ModalityState.NON_MODAL);
+    AlarmEdtDispatcher.dispatch(application, () -> log.add("c"), ModalityState.NON_MODAL);
+
+    UIUtil.dispatchAllInvocationEvents();
+    assertEquals(Arrays.asList("a", "b", "c", "later", "a done"), log);
+  }
+
+  public void testCancelAllRequestsStopsFiredRequestWaitingForEdt() {
+    Alarm alarm = new Alarm(getTestRootDisposable());
+    AtomicBoolean run = new AtomicBoolean();
+    // the requests fired meanwhile can't run until this test gives EDT back
+    int pending = AlarmEdtDispatcher.getPendingRequestCount();
+    alarm.addRequest(() -> run.set(true), 0, ModalityState.NON_MODAL);
+
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (AlarmEdtDispatcher.getPendingRequestCount() == pending && System.currentTimeMillis() < deadline) {
+      TimeoutUtil.sleep(1);
+    }
+    assertTrue("the request hasn't fired", AlarmEdtDispatcher.getPendingRequestCount() > pending);
+
+    alarm.cancelAllRequests();
+    UIUtil.dispatchAllInvocationEvents();
+    assertFalse(run.get());
+    assertEquals(0, alarm.getActiveRequestCount());
+  }
+}
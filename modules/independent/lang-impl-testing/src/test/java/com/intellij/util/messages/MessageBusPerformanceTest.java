@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.util.messages;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.util.ThrowableRunnable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Fan-out of a high-rate topic (like VFS events during refresh) from the root bus to many subscribers on child buses,
+ * similar to application -> project -> module buses.
+ */
+public class MessageBusPerformanceTest {
+  private static final int PROJECTS = 5;
+  private static final int MODULES_PER_PROJECT = 40;
+  private static final int SUBSCRIBERS_PER_BUS = 5;
+  private static final int MESSAGES = 20000;
+
+  public interface CountingListener {
+    void event();
+  }
+
+  private static final Topic<CountingListener> TOPIC = new Topic<CountingListener>("counting", CountingListener.class);
+
+  private final Disposable myDisposable = Disposer.newDisposable();
+  private MessageBus myRootBus;
+  private final List<MessageBus> myLeafBuses = new ArrayList<MessageBus>();
+  private final AtomicInteger myDelivered = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    myRootBus = MessageBusFactory.newMessageBus("application");
+    for (int p = 0; p < PROJECTS; p++) {
+      MessageBus projectBus = MessageBusFactory.newMessageBus("project" + p, myRootBus);
+      for (int m = 0; m < MODULES_PER_PROJECT; m++) {
+        MessageBus moduleBus = MessageBusFactory.newMessageBus("module" + m, projectBus);
+        for (int s = 0; s < SUBSCRIBERS_PER_BUS; s++) {
+          moduleBus.connect(myDisposable).subscribe(TOPIC, new CountingListener() {
+            @Override
+            public void event() {
+              myDelivered.incrementAndGet();
+            }
+          });
+        }
+        myLeafBuses.add(moduleBus);
+      }
+    }
+  }
+
+  @After
+  public void tearDown() {
+    Disposer.dispose(myDisposable);
+    myRootBus.dispose();
+  }
+
+  @Test
+  public void testFanOutToChildBuses() {
+    final CountingListener publisher = myRootBus.syncPublisher(TOPIC);
+    PlatformTestUtil.startPerformanceTest("MessageBus fan-out to child buses", 3000, new ThrowableRunnable() {
+      @Override
+      public void run() throws Exception {
+        myDelivered.set(0);
+        for (int i = 0; i < MESSAGES; i++) {
+          publisher.event();
+        }
+        assertEquals(MESSAGES * PROJECTS * MODULES_PER_PROJECT * SUBSCRIBERS_PER_BUS, myDelivered.get());
+      }
+    }).assertTiming();
+  }
+
+  @Test
+  public void testPublishingFromLeafBuses() {
+    PlatformTestUtil.startPerformanceTest("MessageBus publishing from leaf buses", 2000, new ThrowableRunnable() {
+      @Override
+      public void run() throws Exception {
+        myDelivered.set(0);
+        for (int i = 0; i < MESSAGES * 20; i++) {
+          myLeafBuses.get(i % myLeafBuses.size()).syncPublisher(TOPIC).event();
+        }
+        assertEquals(MESSAGES * 20 * SUBSCRIBERS_PER_BUS, myDelivered.get());
+      }
+    }).assertTiming();
+  }
+}
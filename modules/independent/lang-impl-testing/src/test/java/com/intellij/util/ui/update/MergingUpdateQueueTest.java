@@ -222,6 +222,23 @@ public class MergingUpdateQueueTest extends FlyIdeaTestCase {
     waitForExecution(queue);
   }
 
+  public void testFlushIsRecordedInStatistics() throws Exception {
+    UpdateQueueStatistics statistics = UpdateQueueStatistics.getInstance();
+    statistics.clear();
+
+    final MyQueue queue = new MyQueue();
+    queue.showNotify();
+
+    queue.queue(new MyUpdate("first"));
+    queue.queue(new MyUpdate("second"));
+
+    waitForExecution(queue);
+
+    String recorded = statistics.getQueueStatistics().get("Test");
+    assertNotNull(recorded);
+    assertTrue(recorded, recorded.startsWith("flushes=1 updates=2 maxDepth=2 "));
+  }
+
 
   private void assertAfterProcessing(MyUpdate update, boolean shouldBeExecuted, boolean shouldBeProcessed) {
     assertEquals(shouldBeExecuted, update.isExecuted());
@@ -228,7 +228,7 @@ public class CompletionLookupArranger extends LookupArranger {
   @Override
   public Pair<List<LookupElement>, Integer> arrangeItems(@Nonnull Lookup lookup, boolean onExplicitAction) {
     List<LookupElement> items = getMatchingItems();
-    Iterable<LookupElement> sortedByRelevance = sortByRelevance(groupItemsBySorter(items));
+    Iterable<LookupElement> sortedByRelevance = new PulledElementsCache<>(sortByRelevance(groupItemsBySorter(items)));
 
     LookupElement relevantSelection = findMostRelevantItem(sortedByRelevance);
     LookupImpl lookupImpl = (LookupImpl)lookup;
@@ -456,6 +456,41 @@ public class CompletionLookupArranger extends LookupArranger {
     super.prefixChanged(lookup);
   }
 
+  /**
+   * The relevance order is computed lazily, and arranging the lookup only needs its top (the preselected item and the visible rows).
+   * This remembers the elements pulled so far, so iterating the order again neither repeats the classification nor sorts further
+   * than the consumers need.
+   */
+  private static class PulledElementsCache<T> implements Iterable<T> {
+    private final Iterator<T> mySource;
+    private final List<T> myPulled = new ArrayList<>();
+
+    PulledElementsCache(@Nonnull Iterable<T> source) {
+      mySource = source.iterator();
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<T> iterator() {
+      return new Iterator<T>() {
+        private int myIndex;
+
+        @Override
+        public boolean hasNext() {
+          return myIndex < myPulled.size() || mySource.hasNext();
+        }
+
+        @Override
+        public T next() {
+          if (myIndex == myPulled.size()) {
+            myPulled.add(mySource.next());
+          }
+          return myPulled.get(myIndex++);
+        }
+      };
+    }
+  }
+
   private static class EmptyClassifier extends Classifier<LookupElement> {
 
     private EmptyClassifier() {
@@ -83,6 +83,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Please don't use this class directly from plugins
@@ -118,7 +119,8 @@ public class CompletionProgressIndicator extends ProgressIndicatorBase implement
     }
   };
 
-  private volatile boolean myIsUpdateSuppressed = false;
+  // nesting depth of withSingleUpdate calls, which come from the weighing thread as well as from EDT
+  private final AtomicInteger myUpdateSuppressionDepth = new AtomicInteger();
   private static int ourInsertSingleItemTimeSpan = 300;
 
   //temp external setters to make Rider autopopup more reactive
@@ -355,19 +357,27 @@ public class CompletionProgressIndicator extends ProgressIndicatorBase implement
     return myLookup;
   }
 
+  /**
+   * Runs the action without updating the lookup after each added item, the update is queued once the outermost call exits.
+   */
   public void withSingleUpdate(Runnable action) {
+    myUpdateSuppressionDepth.incrementAndGet();
     try {
-      myIsUpdateSuppressed = true;
       action.run();
     } finally {
-      myIsUpdateSuppressed = false;
-      myQueue.queue(myUpdate);
+      if (myUpdateSuppressionDepth.decrementAndGet() == 0) {
+        myQueue.queue(myUpdate);
+      }
     }
   }
 
+  private boolean isUpdateSuppressed() {
+    return myUpdateSuppressionDepth.get() > 0;
+  }
+
   private boolean updateLookup() {
     ApplicationManager.getApplication().assertIsDispatchThread();
-    if (isOutdated() || !shouldShowLookup() || myIsUpdateSuppressed) return false;
+    if (isOutdated() || !shouldShowLookup() || isUpdateSuppressed()) return false;
 
     while (true) {
       Runnable action = myAdvertiserChanges.poll();
@@ -464,7 +474,9 @@ public class CompletionProgressIndicator extends ProgressIndicatorBase implement
     if (myCount == 1) {
       JobScheduler.getScheduler().schedule(myFreezeSemaphore::up, ourInsertSingleItemTimeSpan, TimeUnit.MILLISECONDS);
     }
-    myQueue.queue(myUpdate);
+    if (!isUpdateSuppressed()) { // otherwise withSingleUpdate queues the update when the whole batch is added
+      myQueue.queue(myUpdate);
+    }
   }
 
   void addDelayedMiddleMatches() {
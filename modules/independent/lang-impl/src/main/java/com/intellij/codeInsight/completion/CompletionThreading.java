@@ -22,6 +22,7 @@ import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.util.ProgressWrapper;
 import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Ref;
 import com.intellij.util.Consumer;
 import com.intellij.util.concurrency.FutureResult;
 import com.intellij.util.concurrency.Semaphore;
@@ -93,6 +94,7 @@ class SyncCompletion extends CompletionThreadingBase {
 
 class AsyncCompletion extends CompletionThreadingBase {
   private static final Logger LOG = Logger.getInstance("#com.intellij.codeInsight.completion.AsyncCompletion");
+  private static final int MAX_WEIGHING_BATCH = 100;
   private ArrayList<CompletionResult> myBatchList = new ArrayList<>();
   private final LinkedBlockingQueue<Computable<Boolean>> myQueue = new LinkedBlockingQueue<>();
 
@@ -123,9 +125,15 @@ class AsyncCompletion extends CompletionThreadingBase {
         try {
           while (true) {
             Computable<Boolean> next = myQueue.poll(30, TimeUnit.MILLISECONDS);
-            if (next != null && !next.compute()) {
-              indicator.addDelayedMiddleMatches();
-              return;
+            if (next != null) {
+              // take whatever the contributors have produced meanwhile, so the lookup is refreshed once per batch, not per item
+              List<Computable<Boolean>> batch = new ArrayList<>();
+              batch.add(next);
+              myQueue.drainTo(batch, MAX_WEIGHING_BATCH - 1);
+              if (!weighBatch(batch)) {
+                indicator.addDelayedMiddleMatches();
+                return;
+              }
             }
             indicator.checkCanceled();
           }
@@ -133,6 +141,22 @@ class AsyncCompletion extends CompletionThreadingBase {
           LOG.error(e);
         }
       }
+
+      private boolean weighBatch(List<Computable<Boolean>> batch) {
+        if (batch.size() == 1) {
+          return batch.get(0).compute();
+        }
+        Ref<Boolean> proceed = Ref.create(true);
+        indicator.withSingleUpdate(() -> {
+          for (Computable<Boolean> computable : batch) {
+            if (!computable.compute()) {
+              proceed.set(false);
+              return;
+            }
+          }
+        });
+        return proceed.get();
+      }
     }
 
     final Future<?> future = startThread(ProgressWrapper.wrap(indicator), new WeighItems());
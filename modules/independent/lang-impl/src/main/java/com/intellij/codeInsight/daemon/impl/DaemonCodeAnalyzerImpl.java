@@ -928,6 +928,14 @@ public class DaemonCodeAnalyzerImpl extends DaemonCodeAnalyzerEx implements Pers
     return myUpdateProgress;
   }
 
+  /**
+   * @return per-pass collect time and time-to-highlight histograms, accumulated since the project was opened
+   */
+  @Nonnull
+  public HighlightingPassStatistics getPassStatistics() {
+    return myPassExecutorService.getStatistics();
+  }
+
   @Nonnull
   private Collection<FileEditor> getSelectedEditors() {
     ApplicationManager.getApplication().assertIsDispatchThread();
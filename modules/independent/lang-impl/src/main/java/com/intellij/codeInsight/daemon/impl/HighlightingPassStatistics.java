@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.codeInsight.daemon.impl;
+
+import com.intellij.codeHighlighting.TextEditorHighlightingPass;
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.ExponentialHistogram;
+import com.intellij.util.containers.ContainerUtil;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency histograms of highlighting passes, collected by {@link PassExecutorService} per pass class:
+ * <ul>
+ * <li>collect - time spent in {@link TextEditorHighlightingPass#collectInformation}</li>
+ * <li>latency - time from the daemon restart (passes submission) till the pass results are applied to the editor,
+ * i.e. what the user perceives as "time to highlight"</li>
+ * </ul>
+ * Buckets are exponential: [0,1), [1,2), [2,4) ... milliseconds, the last bucket is open-ended.
+ */
+public class HighlightingPassStatistics {
+  public static final int BUCKET_COUNT = 16;
+
+  private final ConcurrentMap<String, PassHistogram> myHistograms = ContainerUtil.newConcurrentMap();
+
+  public static class PassHistogram {
+    private final ExponentialHistogram myCollect = new ExponentialHistogram(TimeUnit.MILLISECONDS, BUCKET_COUNT);
+    private final ExponentialHistogram myLatency = new ExponentialHistogram(TimeUnit.MILLISECONDS, BUCKET_COUNT);
+    private final AtomicInteger myCanceled = new AtomicInteger();
+
+    @Nonnull
+    public long[] getCollectHistogram() {
+      return myCollect.toArray();
+    }
+
+    @Nonnull
+    public long[] getLatencyHistogram() {
+      return myLatency.toArray();
+    }
+
+    public int getCanceledCount() {
+      return myCanceled.get();
+    }
+  }
+
+  void collected(@Nonnull TextEditorHighlightingPass pass, long nanos) {
+    histogramFor(pass).myCollect.record(nanos);
+  }
+
+  void applied(@Nonnull TextEditorHighlightingPass pass, long nanosSinceSubmit) {
+    histogramFor(pass).myLatency.record(nanosSinceSubmit);
+  }
+
+  void canceled(@Nonnull TextEditorHighlightingPass pass) {
+    histogramFor(pass).myCanceled.incrementAndGet();
+  }
+
+  @Nonnull
+  private PassHistogram histogramFor(@Nonnull TextEditorHighlightingPass pass) {
+    String name = pass.getClass().getName();
+    PassHistogram histogram = myHistograms.get(name);
+    return histogram != null ? histogram : ConcurrencyUtil.cacheOrGet(myHistograms, name, new PassHistogram());
+  }
+
+  // lower bound of the bucket, in milliseconds
+  public static long bucketStartMillis(int bucket) {
+    return ExponentialHistogram.bucketStart(bucket);
+  }
+
+  @Nonnull
+  public Map<String, PassHistogram> getHistograms() {
+    return new TreeMap<>(myHistograms);
+  }
+
+  public void clear() {
+    myHistograms.clear();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    for (Map.Entry<String, PassHistogram> entry : getHistograms().entrySet()) {
+      PassHistogram histogram = entry.getValue();
+      result.append(entry.getKey()).append(": canceled=").append(histogram.getCanceledCount()).append('\n');
+      histogram.myCollect.appendTo(result, "  collect");
+      histogram.myLatency.appendTo(result, "  latency");
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.codeInsight.daemon.impl;
+
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.containers.ContainerUtil;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution time of local inspections per tool and file type, collected by {@link LocalInspectionsPass}.
+ * Used to start the most expensive tools first, so a single slow inspection doesn't become the tail of the pass.
+ */
+public class InspectionTimings {
+  private static final InspectionTimings ourInstance = new InspectionTimings();
+
+  private final ConcurrentMap<String, ToolTiming> myTimings = ContainerUtil.newConcurrentMap();
+
+  @Nonnull
+  public static InspectionTimings getInstance() {
+    return ourInstance;
+  }
+
+  public static class ToolTiming {
+    private final AtomicLong myTotalNanos = new AtomicLong();
+    private final AtomicInteger myRuns = new AtomicInteger();
+    private volatile long myMaxNanos;
+    // exponential moving average, recent runs matter more than the ones before the file has grown
+    private volatile long myEstimateNanos = -1;
+
+    private void add(long nanos) {
+      myTotalNanos.addAndGet(nanos);
+      myRuns.incrementAndGet();
+      if (nanos > myMaxNanos) myMaxNanos = nanos; // races are harmless here
+      long estimate = myEstimateNanos;
+      myEstimateNanos = estimate < 0 ? nanos : estimate + (nanos - estimate) / 4;
+    }
+
+    public long getTotalNanos() {
+      return myTotalNanos.get();
+    }
+
+    public int getRuns() {
+      return myRuns.get();
+    }
+
+    public long getMaxNanos() {
+      return myMaxNanos;
+    }
+
+    public long getEstimateNanos() {
+      return myEstimateNanos;
+    }
+  }
+
+  void record(@Nonnull String toolShortName, @Nonnull FileType fileType, long nanos) {
+    String key = key(toolShortName, fileType);
+    ToolTiming timing = myTimings.get(key);
+    if (timing == null) {
+      timing = ConcurrencyUtil.cacheOrGet(myTimings, key, new ToolTiming());
+    }
+    timing.add(nanos);
+  }
+
+  /**
+   * @return expected execution time of the tool on a file of the given type, or -1 if the tool was never run on such files
+   */
+  long getEstimateNanos(@Nonnull String toolShortName, @Nonnull FileType fileType) {
+    ToolTiming timing = myTimings.get(key(toolShortName, fileType));
+    return timing == null ? -1 : timing.getEstimateNanos();
+  }
+
+  @Nonnull
+  private static String key(@Nonnull String toolShortName, @Nonnull FileType fileType) {
+    return toolShortName + " (" + fileType.getName() + ")";
+  }
+
+  /**
+   * @return "tool (file type)" to timing, sorted by key
+   */
+  @Nonnull
+  public Map<String, ToolTiming> getTimings() {
+    return new TreeMap<>(myTimings);
+  }
+
+  public void clear() {
+    myTimings.clear();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    for (Map.Entry<String, ToolTiming> entry : getTimings().entrySet()) {
+      ToolTiming timing = entry.getValue();
+      result.append(entry.getKey())
+              .append(": runs=").append(timing.getRuns())
+              .append(" total=").append(TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos())).append("ms")
+              .append(" max=").append(TimeUnit.NANOSECONDS.toMillis(timing.getMaxNanos())).append("ms")
+              .append(" estimate=").append(TimeUnit.NANOSECONDS.toMillis(timing.getEstimateNanos())).append("ms")
+              .append('\n');
+    }
+    return result.toString();
+  }
+}
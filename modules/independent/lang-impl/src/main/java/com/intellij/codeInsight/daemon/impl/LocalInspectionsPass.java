@@ -39,6 +39,7 @@ import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.RangeMarker;
 import com.intellij.openapi.editor.colors.EditorColorsScheme;
 import com.intellij.openapi.editor.markup.TextAttributes;
+import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.keymap.Keymap;
 import com.intellij.openapi.keymap.KeymapManager;
 import com.intellij.openapi.keymap.KeymapUtil;
@@ -88,6 +89,9 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
   private final SeverityRegistrar mySeverityRegistrar;
   private final InspectionProfileWrapper myProfileWrapper;
   private boolean myFailFastOnAcquireReadAction;
+  // disjoint parts of myRestrictRange which were actually changed, null means the whole range is to be inspected
+  @Nullable
+  private List<TextRange> myDirtyRegions;
 
   public LocalInspectionsPass(@Nonnull PsiFile file,
                               @Nullable Document document,
@@ -125,6 +129,30 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
     setProgressLimit(300 * 2);
   }
 
+  /**
+   * Restricts inspection to the elements intersecting the given parts of the restrict range.
+   * Highlighters in between the regions are left intact as if the regions were changed and re-inspected one by one.
+   */
+  void setDirtyRegions(@Nullable List<TextRange> dirtyRegions) {
+    myDirtyRegions = dirtyRegions == null || dirtyRegions.size() < 2 ? null : dirtyRegions;
+  }
+
+  private boolean intersectsDirtyRegions(@Nonnull TextRange range) {
+    if (myDirtyRegions == null) return true;
+    for (TextRange region : myDirtyRegions) {
+      if (region.intersects(range)) return true;
+    }
+    return false;
+  }
+
+  private boolean isInsideDirtyRegions(int startOffset, int endOffset) {
+    if (myDirtyRegions == null) return true;
+    for (TextRange region : myDirtyRegions) {
+      if (region.containsRange(startOffset, endOffset)) return true;
+    }
+    return false;
+  }
+
   @Nonnull
   private PsiFile getFile() {
     //noinspection ConstantConditions
@@ -220,6 +248,10 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
                                            new CommonProcessors.CollectProcessor<>(allDivided));
     List<PsiElement> inside = ContainerUtil.concat((List<List<PsiElement>>)ContainerUtil.map(allDivided, d -> d.inside));
     List<PsiElement> outside = ContainerUtil.concat((List<List<PsiElement>>)ContainerUtil.map(allDivided, d -> ContainerUtil.concat(d.outside, d.parents)));
+    if (myDirtyRegions != null) {
+      inside = ContainerUtil.filter(inside, element -> intersectsDirtyRegions(element.getTextRange()));
+      outside = ContainerUtil.filter(outside, element -> intersectsDirtyRegions(element.getTextRange()));
+    }
 
     Set<String> elementDialectIds = InspectionEngine.calcElementDialectIds(inside, outside);
     Map<LocalInspectionToolWrapper, Set<String>> toolToSpecifiedLanguageIds = InspectionEngine.getToolsToSpecifiedLanguages(toolWrappers);
@@ -234,6 +266,7 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
     inspectInjectedPsi(outside, isOnTheFly, progress, iManager, false, toolWrappers);
 
     progress.checkCanceled();
+    recordTimings(init);
 
     myInfos = new ArrayList<>();
     addHighlightsFromResults(myInfos, progress);
@@ -250,6 +283,7 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
                                                                @Nonnull final Set<String> elementDialectIds) {
     final List<InspectionContext> init = new ArrayList<>();
     List<Map.Entry<LocalInspectionToolWrapper, Set<String>>> entries = new ArrayList<>(toolToSpecifiedLanguageIds.entrySet());
+    sortByExpectedCost(entries, Map.Entry::getKey);
 
     Processor<Map.Entry<LocalInspectionToolWrapper, Set<String>>> processor = pair -> {
       LocalInspectionToolWrapper toolWrapper = pair.getKey();
@@ -273,6 +307,7 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
                                  @Nonnull List<InspectionContext> init,
                                  @Nonnull Set<String> elementDialectIds) {
     indicator.checkCanceled();
+    long start = System.nanoTime();
 
     ApplicationManager.getApplication().assertReadAccessAllowed();
     final LocalInspectionTool tool = toolWrapper.getTool();
@@ -291,7 +326,7 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
             InspectionEngine.createVisitorAndAcceptElements(tool, holder, isOnTheFly, session, elements, elementDialectIds, dialectIdsSpecifiedForTool);
 
     synchronized (init) {
-      init.add(new InspectionContext(toolWrapper, holder, holder.getResultCount(), visitor, dialectIdsSpecifiedForTool));
+      init.add(new InspectionContext(toolWrapper, holder, holder.getResultCount(), visitor, dialectIdsSpecifiedForTool, System.nanoTime() - start));
     }
     advanceProgress(1);
 
@@ -309,9 +344,11 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
     Processor<InspectionContext> processor = context -> {
       indicator.checkCanceled();
       ApplicationManager.getApplication().assertReadAccessAllowed();
+      long start = System.nanoTime();
       InspectionEngine.acceptElements(elements, context.visitor, elementDialectIds, context.dialectIdsSpecifiedForTool);
       advanceProgress(1);
       context.tool.getTool().inspectionFinished(session, context.holder);
+      context.nanos += System.nanoTime() - start;
 
       if (context.holder.hasResults()) {
         List<ProblemDescriptor> allProblems = context.holder.getResults();
@@ -320,12 +357,36 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
       }
       return true;
     };
+    sortByExpectedCost(init, context -> context.tool);
     boolean result = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(init, indicator, myFailFastOnAcquireReadAction, processor);
     if (!result) {
       throw new ProcessCanceledException();
     }
   }
 
+  // longest processing time first: JobLauncher starts the items in the list order and hands the rest to idle workers,
+  // so the most expensive tools start right away and don't end up as the tail of the pass.
+  // Tools never run on this file type yet are considered expensive until measured.
+  private <T> void sortByExpectedCost(@Nonnull List<T> items, @Nonnull Function<T, LocalInspectionToolWrapper> toTool) {
+    FileType fileType = getFile().getFileType();
+    InspectionTimings timings = InspectionTimings.getInstance();
+    Map<LocalInspectionToolWrapper, Long> costs = new THashMap<>(items.size());
+    for (T item : items) {
+      LocalInspectionToolWrapper tool = toTool.fun(item);
+      long estimate = timings.getEstimateNanos(tool.getShortName(), fileType);
+      costs.put(tool, estimate < 0 ? Long.MAX_VALUE : estimate);
+    }
+    items.sort((o1, o2) -> Long.compare(costs.get(toTool.fun(o2)), costs.get(toTool.fun(o1))));
+  }
+
+  private void recordTimings(@Nonnull List<InspectionContext> contexts) {
+    FileType fileType = getFile().getFileType();
+    InspectionTimings timings = InspectionTimings.getInstance();
+    for (InspectionContext context : contexts) {
+      timings.record(context.tool.getShortName(), fileType, context.nanos);
+    }
+  }
+
   void inspectInjectedPsi(@Nonnull final List<PsiElement> elements,
                           final boolean onTheFly,
                           @Nonnull final ProgressIndicator indicator,
@@ -397,6 +458,7 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
               infos.clear();
               createHighlightsForDescriptor(infos, emptyActionRegistered, ilManager, file, thisDocument, tool, severity, descriptor, psiElement);
               for (HighlightInfo info : infos) {
+                if (!isInsideDirtyRegions(info.getStartOffset(), info.getEndOffset())) continue;
                 final EditorColorsScheme colorsScheme = getColorsScheme();
                 UpdateHighlightersUtil
                         .addHighlighterToEditorIncrementally(myProject, myDocument, getFile(), myRestrictRange.getStartOffset(), myRestrictRange.getEndOffset(),
@@ -449,9 +511,14 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
 
   @Override
   protected void applyInformationWithProgress() {
-    UpdateHighlightersUtil
-            .setHighlightersToEditor(myProject, myDocument, myRestrictRange.getStartOffset(), myRestrictRange.getEndOffset(), myInfos, getColorsScheme(),
-                                     getId());
+    if (myDirtyRegions == null) {
+      UpdateHighlightersUtil
+              .setHighlightersToEditor(myProject, myDocument, myRestrictRange.getStartOffset(), myRestrictRange.getEndOffset(), myInfos, getColorsScheme(),
+                                       getId());
+      return;
+    }
+    // each region replaces only the highlighters inside it, so highlighters in between the regions survive
+    UpdateHighlightersUtil.setHighlightersToEditor(myProject, myDocument, myDirtyRegions, myInfos, getColorsScheme(), getId());
   }
 
   private void addHighlightsFromResults(@Nonnull List<HighlightInfo> outInfos, @Nonnull ProgressIndicator indicator) {
@@ -751,12 +818,14 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
                               int problemsSize,
                               // need this to diff between found problems in visible part and the rest
                               @Nonnull PsiElementVisitor visitor,
-                              @Nullable Set<String> dialectIdsSpecifiedForTool) {
+                              @Nullable Set<String> dialectIdsSpecifiedForTool,
+                              long nanos) {
       this.tool = tool;
       this.holder = holder;
       this.problemsSize = problemsSize;
       this.visitor = visitor;
       this.dialectIdsSpecifiedForTool = dialectIdsSpecifiedForTool;
+      this.nanos = nanos;
     }
 
     @Nonnull
@@ -768,5 +837,7 @@ public class LocalInspectionsPass extends ProgressableTextEditorHighlightingPass
     private final PsiElementVisitor visitor;
     @Nullable
     private final Set<String> dialectIdsSpecifiedForTool;
+    // time spent in the tool for both the priority and the rest elements
+    private long nanos;
   }
 }
@@ -64,7 +64,10 @@ public class LocalInspectionsPassFactory extends AbstractProjectComponent implem
       return new ProgressableTextEditorHighlightingPass.EmptyPass(myProject, editor.getDocument());
     }
     TextRange visibleRange = VisibleHighlightingPassFactory.calculateVisibleRange(editor);
-    return new MyLocalInspectionsPass(file, editor.getDocument(), textRange, visibleRange, new DefaultHighlightInfoProcessor());
+    MyLocalInspectionsPass pass = new MyLocalInspectionsPass(file, editor.getDocument(), textRange, visibleRange, new DefaultHighlightInfoProcessor());
+    // several distant code blocks changed: inspect just them instead of everything in between
+    pass.setDirtyRegions(FileStatusMap.getDirtyTextRanges(editor, Pass.LOCAL_INSPECTIONS));
+    return pass;
   }
 
   @Override
@@ -56,6 +56,7 @@ import org.jetbrains.annotations.NonNls;
 import javax.annotation.Nonnull;
 import org.jetbrains.annotations.TestOnly;
 
+import javax.swing.*;
 import java.util.*;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
@@ -76,6 +77,7 @@ class PassExecutorService implements Disposable {
   private final Project myProject;
   private volatile boolean isDisposed;
   private final AtomicInteger nextPassId = new AtomicInteger(100);
+  private final HighlightingPassStatistics myStatistics = new HighlightingPassStatistics();
 
   PassExecutorService(@Nonnull Project project) {
     myProject = project;
@@ -112,6 +114,7 @@ class PassExecutorService implements Disposable {
 
   void submitPasses(@Nonnull Map<FileEditor, HighlightingPass[]> passesMap, @Nonnull DaemonProgressIndicator updateProgress) {
     if (isDisposed()) return;
+    updateProgress.putUserData(SUBMITTED_NANOS_KEY, System.nanoTime());
 
     // null keys are ok
     MultiMap<Document, FileEditor> documentToEditors = MultiMap.createSet();
@@ -206,11 +209,26 @@ class PassExecutorService implements Disposable {
     for (ScheduledPass dependentPass : dependentPasses) {
       mySubmittedPasses.put(dependentPass, Job.NULL_JOB);
     }
+    // time-to-highlight of the editor the user is looking at matters most, so start its passes first
+    ContainerUtil.sort(freePasses, Comparator.comparingInt((ScheduledPass pass) -> getVisibilityPriority(pass.myFileEditor)));
     for (ScheduledPass freePass : freePasses) {
       submit(freePass);
     }
   }
 
+  // 0 for the focused editor, 1 for other visible editors, 2 for the rest
+  private static int getVisibilityPriority(@Nonnull FileEditor fileEditor) {
+    JComponent component = fileEditor.getComponent();
+    if (!component.isShowing()) return 2;
+    if (fileEditor instanceof TextEditor && ((TextEditor)fileEditor).getEditor().getContentComponent().hasFocus()) return 0;
+    return 1;
+  }
+
+  @Nonnull
+  HighlightingPassStatistics getStatistics() {
+    return myStatistics;
+  }
+
   private void assertConsistency(List<ScheduledPass> freePasses,
                                  Map<Pair<FileEditor, Integer>, ScheduledPass> toBeSubmitted,
                                  AtomicInteger threadsToStartCountdown) {
@@ -436,11 +454,14 @@ class PassExecutorService implements Disposable {
             }
 
             if (!myUpdateProgress.isCanceled() && !myProject.isDisposed()) {
+              long start = System.nanoTime();
               myPass.collectInformation(myUpdateProgress);
+              myStatistics.collected(myPass, System.nanoTime() - start);
             }
           }
           catch (ProcessCanceledException e) {
             log(myUpdateProgress, myPass, "Canceled ");
+            myStatistics.canceled(myPass);
 
             if (!myUpdateProgress.isCanceled()) {
               myUpdateProgress.cancel(e); //in case when some smart asses throw PCE just for fun
@@ -504,6 +525,10 @@ class PassExecutorService implements Disposable {
       try {
         if (fileEditor.getComponent().isDisplayable() || ApplicationManager.getApplication().isUnitTestMode()) {
           pass.applyInformationToEditor();
+          Long submitted = updateProgress.getUserData(SUBMITTED_NANOS_KEY);
+          if (submitted != null) {
+            myStatistics.applied(pass, System.nanoTime() - submitted);
+          }
           FileStatusMap fileStatusMap = DaemonCodeAnalyzerEx.getInstanceEx(myProject).getFileStatusMap();
           if (document != null) {
             fileStatusMap.markFileUpToDate(document, pass.getId());
@@ -579,6 +604,7 @@ class PassExecutorService implements Disposable {
   }
 
   private static final Key<Throwable> THROWABLE_KEY = Key.create("THROWABLE_KEY");
+  private static final Key<Long> SUBMITTED_NANOS_KEY = Key.create("SUBMITTED_NANOS_KEY");
   private static void saveException(@Nonnull Throwable e, @Nonnull DaemonProgressIndicator indicator) {
     indicator.putUserDataIfAbsent(THROWABLE_KEY, e);
   }
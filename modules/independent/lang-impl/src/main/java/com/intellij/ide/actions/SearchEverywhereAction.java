@@ -68,6 +68,7 @@ import com.intellij.openapi.options.SearchableConfigurable;
 import com.intellij.openapi.options.ShowSettingsUtil;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.util.ProgressIndicatorBase;
 import com.intellij.openapi.project.DumbAware;
 import com.intellij.openapi.project.DumbAwareAction;
@@ -116,10 +117,15 @@ import javax.annotation.Nullable;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.event.DocumentEvent;
+import javax.swing.event.ListDataListener;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -1285,7 +1291,7 @@ public class SearchEverywhereAction extends AnAction implements CustomComponentA
     private final ProgressIndicator myProgressIndicator = new ProgressIndicatorBase();
     private final ActionCallback myDone = new ActionCallback();
     private final SearchListModel myListModel;
-    private final ArrayList<VirtualFile> myAlreadyAddedFiles = new ArrayList<>();
+    private final List<VirtualFile> myAlreadyAddedFiles = Collections.synchronizedList(new ArrayList<>());
     private final ArrayList<AnAction> myAlreadyAddedActions = new ArrayList<>();
 
 
@@ -1353,32 +1359,7 @@ public class SearchEverywhereAction extends AnAction implements CustomComponentA
           updatePopup();
           check();
 
-          runReadAction(new Runnable() {
-            @Override
-            public void run() {
-              buildRunConfigurations(pattern);
-            }
-          }, true);
-          runReadAction(new Runnable() {
-            @Override
-            public void run() {
-              buildClasses(pattern);
-            }
-          }, true);
-          runReadAction(new Runnable() {
-            @Override
-            public void run() {
-              buildFiles(pattern);
-            }
-          }, false);
-          runReadAction(new Runnable() {
-            @Override
-            public void run() {
-              buildSymbols(pattern);
-            }
-          }, true);
-
-          buildActionsAndSettings(pattern);
+          buildIndexBasedSections(pattern);
 
           updatePopup();
 
@@ -1409,6 +1390,149 @@ public class SearchEverywhereAction extends AnAction implements CustomComponentA
       }
     }
 
+    /**
+     * Run configurations, classes, files, symbols, actions and settings are computed concurrently.
+     * Their sections are added in the usual order; a contributor exceeding the time budget doesn't hold back
+     * the ones after it, its section is appended when it's ready.
+     * Files are searched after classes, so that the files of the found classes are skipped and don't take the places of other files.
+     */
+    private void buildIndexBasedSections(final String pattern) {
+      List<Future<Runnable>> pending = new ArrayList<>();
+      pending.add(submit(() -> {
+        SearchResult runConfigurations = getConfigurations(pattern, MAX_RUN_CONFIGURATION);
+        return () -> addRunConfigurations(runConfigurations);
+      }, true));
+      Future<Runnable> classesSection = submit(() -> {
+        SearchResult classes = getClasses(pattern, showAll.get(), MAX_CLASSES, myClassChooseByName);
+        return () -> addClasses(classes);
+      }, true);
+      pending.add(classesSection);
+      pending.add(submit(() -> {
+        SearchResult files = getFiles(pattern, MAX_FILES, myFileChooseByName);
+        return () -> addFiles(files);
+      }, false, classesSection));
+      pending.add(submit(() -> {
+        SearchResult symbols = getSymbols(pattern, MAX_SYMBOLS, mySymbolsChooseByName);
+        return () -> addSymbols(symbols);
+      }, true));
+      pending.add(submit(() -> {
+        SearchResult actions = getActionsOrSettings(pattern, MAX_ACTIONS, true);
+        SearchResult settings = getActionsOrSettings(pattern, MAX_SETTINGS, false);
+        return () -> addActionsAndSettings(actions, settings);
+      }, null));
+
+      long deadline = System.currentTimeMillis() + Registry.intValue("search.everywhere.contributor.budget");
+      try {
+        while (!pending.isEmpty()) {
+          check();
+          boolean overBudget = System.currentTimeMillis() > deadline;
+          boolean added = false;
+          for (Iterator<Future<Runnable>> iterator = pending.iterator(); iterator.hasNext(); ) {
+            Future<Runnable> section = iterator.next();
+            if (section.isDone()) {
+              iterator.remove();
+              addSection(section);
+              added = true;
+            }
+            else if (!overBudget) {
+              break;
+            }
+          }
+          if (added) {
+            updatePopup();
+          }
+          else if (!pending.isEmpty()) {
+            try {
+              pending.get(0).get(10, TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException | ExecutionException ignore) {
+            }
+          }
+        }
+      }
+      catch (InterruptedException e) {
+        cancelSections(pending);
+        throw new ProcessCanceledException(e);
+      }
+      catch (ProcessCanceledException e) {
+        cancelSections(pending);
+        throw e;
+      }
+    }
+
+    // the popup fields are reset once this thread is done, so the sections still running must finish before
+    private void cancelSections(@Nonnull List<Future<Runnable>> pending) {
+      myProgressIndicator.cancel();
+      for (Future<Runnable> section : pending) {
+        try {
+          section.get();
+        }
+        catch (InterruptedException | ExecutionException ignore) {
+        }
+      }
+    }
+
+    @Nonnull
+    private Future<Runnable> submit(@Nonnull Computable<Runnable> section, @Nullable Boolean checkDumb) {
+      return submit(section, checkDumb, null);
+    }
+
+    /**
+     * @param checkDumb null to run without read action, otherwise whether to skip the computation in dumb mode
+     * @param after     section to wait for before starting this one (outside of read action)
+     */
+    @Nonnull
+    private Future<Runnable> submit(@Nonnull Computable<Runnable> section, @Nullable Boolean checkDumb, @Nullable Future<Runnable> after) {
+      return ApplicationManager.getApplication().executeOnPooledThread(() -> {
+        if (after != null) {
+          try {
+            after.get();
+          }
+          catch (ExecutionException ignore) {
+            // reported by addSection()
+          }
+        }
+        Ref<Runnable> result = Ref.create(EmptyRunnable.getInstance());
+        // the indicator is shared by all sections, so it's only associated with the thread, not started
+        ProgressManager.getInstance().executeProcessUnderProgress(() -> {
+          if (checkDumb == null) {
+            result.set(section.compute());
+          }
+          else if (!checkDumb || !DumbService.getInstance(project).isDumb()) {
+            result.set(ApplicationManager.getApplication().runReadAction(section));
+          }
+        }, myProgressIndicator);
+        return result.get();
+      });
+    }
+
+    private void addSection(@Nonnull Future<Runnable> section) throws InterruptedException {
+      Runnable add;
+      try {
+        add = section.get();
+      }
+      catch (ExecutionException e) {
+        if (!(e.getCause() instanceof ProcessCanceledException)) {
+          LOG.error(e.getCause());
+        }
+        return;
+      }
+      check();
+      add.run();
+    }
+
+    // sections are computed concurrently, so elements already shown by another section are dropped here, on EDT
+    @Nonnull
+    private List<Object> notYetAdded(@Nonnull List<Object> elements) {
+      List<Object> result = new ArrayList<>(elements.size());
+      for (Object element : elements) {
+        if (!myListModel.contains(element) && !result.contains(element)) {
+          result.add(element);
+        }
+      }
+      return result;
+    }
+
     private void runReadAction(Runnable action, boolean checkDumb) {
       if (!checkDumb || !DumbService.getInstance(project).isDumb()) {
         ApplicationManager.getApplication().runReadAction(action);
@@ -1487,46 +1611,41 @@ public class SearchEverywhereAction extends AnAction implements CustomComponentA
       return result;
     }
 
-    private synchronized void buildActionsAndSettings(String pattern) {
-      final SearchResult actions = getActionsOrSettings(pattern, MAX_ACTIONS, true);
-      final SearchResult settings = getActionsOrSettings(pattern, MAX_SETTINGS, false);
-
-      check();
-
+    private void addActionsAndSettings(final SearchResult actions, final SearchResult settings) {
       SwingUtilities.invokeLater(new Runnable() {
         @Override
         public void run() {
           if (isCanceled()) return;
-          if (actions.size() > 0) {
+          List<Object> newActions = notYetAdded(actions);
+          if (newActions.size() > 0) {
             myListModel.titleIndex.actions = myListModel.size();
-            for (Object action : actions) {
+            for (Object action : newActions) {
               myListModel.addElement(action);
             }
           }
-          myListModel.moreIndex.actions = actions.size() >= MAX_ACTIONS ? myListModel.size() - 1 : -1;
-          if (settings.size() > 0) {
+          myListModel.moreIndex.actions = newActions.size() > 0 && actions.size() >= MAX_ACTIONS ? myListModel.size() - 1 : -1;
+          List<Object> newSettings = notYetAdded(settings);
+          if (newSettings.size() > 0) {
             myListModel.titleIndex.settings = myListModel.size();
-            for (Object setting : settings) {
+            for (Object setting : newSettings) {
               myListModel.addElement(setting);
             }
           }
-          myListModel.moreIndex.settings = settings.size() >= MAX_SETTINGS ? myListModel.size() - 1 : -1;
+          myListModel.moreIndex.settings = newSettings.size() > 0 && settings.size() >= MAX_SETTINGS ? myListModel.size() - 1 : -1;
         }
       });
     }
 
-    private synchronized void buildFiles(final String pattern) {
-      final SearchResult files = getFiles(pattern, MAX_FILES, myFileChooseByName);
-
-      check();
-
+    private void addFiles(final SearchResult files) {
       if (files.size() > 0) {
         SwingUtilities.invokeLater(new Runnable() {
           @Override
           public void run() {
             if (isCanceled()) return;
+            List<Object> newFiles = notYetAdded(files);
+            if (newFiles.isEmpty()) return;
             myListModel.titleIndex.files = myListModel.size();
-            for (Object file : files) {
+            for (Object file : newFiles) {
               myListModel.addElement(file);
             }
             myListModel.moreIndex.files = files.needMore ? myListModel.size() - 1 : -1;
@@ -1571,17 +1690,16 @@ public class SearchEverywhereAction extends AnAction implements CustomComponentA
     }
 
 
-    private synchronized void buildSymbols(final String pattern) {
-      final SearchResult symbols = getSymbols(pattern, MAX_SYMBOLS, mySymbolsChooseByName);
-      check();
-
+    private void addSymbols(final SearchResult symbols) {
       if (symbols.size() > 0) {
         SwingUtilities.invokeLater(new Runnable() {
           @Override
           public void run() {
             if (isCanceled()) return;
+            List<Object> newSymbols = notYetAdded(symbols);
+            if (newSymbols.isEmpty()) return;
             myListModel.titleIndex.symbols = myListModel.size();
-            for (Object file : symbols) {
+            for (Object file : newSymbols) {
               myListModel.addElement(file);
             }
             myListModel.moreIndex.symbols = symbols.needMore ? myListModel.size() - 1 : -1;
@@ -1607,16 +1725,16 @@ public class SearchEverywhereAction extends AnAction implements CustomComponentA
       return null;
     }
 
-    private synchronized void buildRunConfigurations(String pattern) {
-      final SearchResult runConfigurations = getConfigurations(pattern, MAX_RUN_CONFIGURATION);
-
+    private void addRunConfigurations(final SearchResult runConfigurations) {
       if (runConfigurations.size() > 0) {
         SwingUtilities.invokeLater(new Runnable() {
           @Override
           public void run() {
             if (isCanceled()) return;
+            List<Object> newRunConfigurations = notYetAdded(runConfigurations);
+            if (newRunConfigurations.isEmpty()) return;
             myListModel.titleIndex.runConfigurations = myListModel.size();
-            for (Object runConfiguration : runConfigurations) {
+            for (Object runConfiguration : newRunConfigurations) {
               myListModel.addElement(runConfiguration);
             }
             myListModel.moreIndex.runConfigurations = runConfigurations.needMore ? myListModel.getSize() - 1 : -1;
@@ -1653,17 +1771,16 @@ public class SearchEverywhereAction extends AnAction implements CustomComponentA
     }
 
 
-    private synchronized void buildClasses(final String pattern) {
-      final SearchResult classes = getClasses(pattern, showAll.get(), MAX_CLASSES, myClassChooseByName);
-      check();
-
+    private void addClasses(final SearchResult classes) {
       if (classes.size() > 0) {
         SwingUtilities.invokeLater(new Runnable() {
           @Override
           public void run() {
             if (isCanceled()) return;
+            List<Object> newClasses = notYetAdded(classes);
+            if (newClasses.isEmpty()) return;
             myListModel.titleIndex.classes = myListModel.size();
-            for (Object file : classes) {
+            for (Object file : newClasses) {
               myListModel.addElement(file);
             }
             myListModel.moreIndex.classes = -1;
@@ -2435,13 +2552,53 @@ public class SearchEverywhereAction extends AnAction implements CustomComponentA
       return all[all.length - 1];
     }
 
+    // index of the first element appended since the last update(), -1 if none or if the rows are to be refreshed as a whole
+    private int myFirstNotFired = -1;
+
+    @Override
+    public void addListDataListener(ListDataListener l) {
+      // a list which gets this model reads all its rows, the ones appended but not fired yet as well
+      myFirstNotFired = -1;
+      super.addListDataListener(l);
+    }
+
+    @Override
+    protected void fireIntervalAdded(Object source, int index0, int index1) {
+      myFirstNotFired = -1;
+      super.fireIntervalAdded(source, index0, index1);
+    }
+
+    @Override
+    protected void fireIntervalRemoved(Object source, int index0, int index1) {
+      myFirstNotFired = -1;
+      super.fireIntervalRemoved(source, index0, index1);
+    }
+
+    @Override
+    protected void fireContentsChanged(Object source, int index0, int index1) {
+      myFirstNotFired = -1;
+      super.fireContentsChanged(source, index0, index1);
+    }
+
     @Override
     public void addElement(Object obj) {
+      if (myFirstNotFired < 0) {
+        myFirstNotFired = myDelegate.size();
+      }
       myDelegate.add(obj);
     }
 
     public void update() {
-      fireContentsChanged(this, 0, getSize() - 1);
+      // sections are only appended while searching, so there is no need to repaint (and re-measure) the rows shown already;
+      // after any other change the listeners don't know which rows are new, so they are refreshed as a whole
+      int firstNotFired = myFirstNotFired;
+      myFirstNotFired = -1;
+      if (firstNotFired >= 0 && firstNotFired < getSize()) {
+        fireIntervalAdded(this, firstNotFired, getSize() - 1);
+      }
+      else {
+        fireContentsChanged(this, 0, getSize() - 1);
+      }
     }
   }
 
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.ide.util.gotoByName;
+
+import com.intellij.navigation.ChooseByNameContributor;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.registry.Registry;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.containers.ContainerUtil;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Names of {@link ChooseByNameContributor}s kept between goto popup invocations, so the indexes aren't enumerated
+ * on each popup opening. Every name is stored together with the set of ASCII letters and digits it contains:
+ * {@link com.intellij.psi.codeStyle.MinusculeMatcher} needs all pattern characters to be present in the name,
+ * so most names are rejected by a single mask comparison before the matcher sees them.
+ * <p/>
+ * Names are softly referenced and dropped on any PSI, project roots, VFS structure or dumb mode change.
+ */
+final class ChooseByNameNamesCache {
+  private static final Key<CachedValue<ConcurrentMap<ChooseByNameContributor, Reference<Names>>>> PROJECT_NAMES =
+          Key.create("ChooseByNameNamesCache.PROJECT_NAMES");
+  private static final Key<CachedValue<ConcurrentMap<ChooseByNameContributor, Reference<Names>>>> ALL_NAMES =
+          Key.create("ChooseByNameNamesCache.ALL_NAMES");
+
+  private ChooseByNameNamesCache() {
+  }
+
+  static final class Names {
+    private final String[] myNames;
+    private final long[] myCharMasks;
+
+    private Names(@Nonnull Collection<String> names) {
+      myNames = new String[names.size()];
+      myCharMasks = new long[names.size()];
+      int i = 0;
+      for (String name : names) {
+        myNames[i] = name;
+        myCharMasks[i] = charMask(name);
+        i++;
+      }
+    }
+
+    /**
+     * @return names which may match the pattern, all names if the pattern is null
+     */
+    @Nonnull
+    List<String> getCandidates(@Nullable String pattern) {
+      long patternMask = pattern == null ? 0 : charMask(pattern);
+      if (patternMask == 0) {
+        return Arrays.asList(myNames);
+      }
+      List<String> result = new ArrayList<String>();
+      for (int i = 0; i < myNames.length; i++) {
+        if ((myCharMasks[i] & patternMask) == patternMask) {
+          result.add(myNames[i]);
+        }
+      }
+      return result;
+    }
+
+    int size() {
+      return myNames.length;
+    }
+  }
+
+  @Nullable
+  static Names getNames(@Nonnull Project project, @Nonnull ChooseByNameContributor contributor, boolean everywhere) {
+    ConcurrentMap<ChooseByNameContributor, Reference<Names>> map = getMap(project, everywhere);
+    if (map == null) return null;
+    Reference<Names> ref = map.get(contributor);
+    return ref == null ? null : ref.get();
+  }
+
+  @Nonnull
+  static Names cacheNames(@Nonnull Project project,
+                          @Nonnull ChooseByNameContributor contributor,
+                          boolean everywhere,
+                          @Nonnull Collection<String> names) {
+    Names result = new Names(names);
+    ConcurrentMap<ChooseByNameContributor, Reference<Names>> map = getMap(project, everywhere);
+    if (map != null) {
+      map.put(contributor, new SoftReference<Names>(result));
+    }
+    return result;
+  }
+
+  @Nullable
+  private static ConcurrentMap<ChooseByNameContributor, Reference<Names>> getMap(@Nonnull final Project project, boolean everywhere) {
+    // names loaded in dumb mode are incomplete, and the indexes are going to change anyway
+    if (!Registry.is("ide.goto.cache.names") || project.isDefault() || DumbService.isDumb(project)) return null;
+    return CachedValuesManager.getManager(project).getCachedValue(project, everywhere ? ALL_NAMES : PROJECT_NAMES, () -> CachedValueProvider.Result
+            .create(ContainerUtil.<ChooseByNameContributor, Reference<Names>>newConcurrentMap(), PsiModificationTracker.SERVICE.getInstance(project),
+                    ProjectRootManager.getInstance(project), VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS,
+                    DumbService.getInstance(project).getModificationTracker()), false);
+  }
+
+  /**
+   * Bits 0..25 stand for latin letters in any case, bits 26..35 for digits; other characters are not tracked.
+   */
+  static long charMask(@Nonnull String s) {
+    long mask = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= 'a' && c <= 'z') {
+        mask |= 1L << (c - 'a');
+      }
+      else if (c >= 'A' && c <= 'Z') {
+        mask |= 1L << (c - 'A');
+      }
+      else if (c >= '0' && c <= '9') {
+        mask |= 1L << (26 + c - '0');
+      }
+    }
+    return mask;
+  }
+}
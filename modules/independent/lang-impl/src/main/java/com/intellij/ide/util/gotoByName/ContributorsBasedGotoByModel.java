@@ -16,6 +16,7 @@
 package com.intellij.ide.util.gotoByName;
 
 import com.intellij.concurrency.JobLauncher;
+import com.intellij.concurrency.JobSchedulerImpl;
 import com.intellij.diagnostic.PluginException;
 import com.intellij.ide.plugins.PluginManager;
 import com.intellij.ide.util.NavigationItemListCellRenderer;
@@ -39,8 +40,10 @@ import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.indexing.FindSymbolParameters;
 import com.intellij.util.indexing.IdFilter;
 import gnu.trove.THashSet;
+import gnu.trove.TIntArrayList;
 import gnu.trove.TIntHashSet;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import consulo.annotations.RequiredReadAction;
 
 import javax.swing.*;
@@ -86,12 +89,22 @@ public abstract class ContributorsBasedGotoByModel implements ChooseByNameModelE
     return !ChooseByNameBase.ourLoadNamesEachTime;
   }
 
+  private static final int MIN_NAMES_TO_SHARD = 10000;
+
   private final ConcurrentMap<ChooseByNameContributor, TIntHashSet> myContributorToItsSymbolsMap = ContainerUtil.newConcurrentMap();
   private volatile IdFilter myIdFilter;
   private volatile boolean myIdFilterForLibraries;
 
   @Override
   public void processNames(final Processor<String> nameProcessor, final boolean checkBoxState) {
+    processNames(nameProcessor, checkBoxState, null);
+  }
+
+  /**
+   * @param pattern if not null, names lacking some of the pattern letters or digits may be skipped
+   *                without passing them to the name processor
+   */
+  void processNames(final Processor<String> nameProcessor, final boolean checkBoxState, @Nullable final String pattern) {
     long start = System.currentTimeMillis();
     List<ChooseByNameContributor> liveContribs = filterDumb(myContributors);
     ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
@@ -105,22 +118,19 @@ public abstract class ContributorsBasedGotoByModel implements ChooseByNameModelE
             final TIntHashSet filter = new TIntHashSet(1000);
             myContributorToItsSymbolsMap.put(contributor, filter);
             if (contributor instanceof ChooseByNameContributorEx) {
-              ((ChooseByNameContributorEx)contributor).processNames(new Processor<String>() {
-                @Override
-                public boolean process(String s) {
-                  if (nameProcessor.process(s)) {
-                    filter.add(s.hashCode());
-                  }
-                  return true;
-                }
-              }, FindSymbolParameters.searchScopeFor(myProject, checkBoxState), getIdFilter(checkBoxState));
+              // names are loaded first and matched afterwards, so a huge contributor can be matched on all cores
+              ChooseByNameNamesCache.Names names = ChooseByNameNamesCache.getNames(myProject, contributor, checkBoxState);
+              if (names == null) {
+                final List<String> loaded = new ArrayList<String>();
+                ((ChooseByNameContributorEx)contributor).processNames(new CommonProcessors.CollectProcessor<String>(loaded),
+                                                                      FindSymbolParameters.searchScopeFor(myProject, checkBoxState),
+                                                                      getIdFilter(checkBoxState));
+                names = ChooseByNameNamesCache.cacheNames(myProject, contributor, checkBoxState, loaded);
+              }
+              processNamesInShards(names.getCandidates(pattern), nameProcessor, filter);
             } else {
               String[] names = contributor.getNames(myProject, checkBoxState);
-              for (String element : names) {
-                if (nameProcessor.process(element)) {
-                  filter.add(element.hashCode());
-                }
-              }
+              processNamesInShards(Arrays.asList(names), nameProcessor, filter);
             }
 
             if (LOG.isDebugEnabled()) {
@@ -152,6 +162,51 @@ public abstract class ContributorsBasedGotoByModel implements ChooseByNameModelE
     }
   }
 
+  /**
+   * Feeds the names to the (thread-safe) name processor, splitting big name sets into shards processed concurrently,
+   * and remembers hashes of the accepted names in the contributor filter.
+   */
+  private static void processNamesInShards(@Nonnull List<String> names,
+                                           @Nonnull final Processor<String> nameProcessor,
+                                           @Nonnull final TIntHashSet filter) {
+    int shardCount = names.size() < MIN_NAMES_TO_SHARD ? 1 : Math.min(JobSchedulerImpl.getCPUCoresCount(), names.size() / MIN_NAMES_TO_SHARD);
+    if (shardCount <= 1) {
+      for (String name : names) {
+        if (nameProcessor.process(name)) {
+          filter.add(name.hashCode());
+        }
+      }
+      return;
+    }
+
+    List<List<String>> shards = new ArrayList<List<String>>(shardCount);
+    int shardSize = (names.size() + shardCount - 1) / shardCount;
+    for (int start = 0; start < names.size(); start += shardSize) {
+      shards.add(names.subList(start, Math.min(start + shardSize, names.size())));
+    }
+    Processor<List<String>> shardProcessor = new Processor<List<String>>() {
+      @Override
+      public boolean process(List<String> shard) {
+        TIntArrayList accepted = new TIntArrayList();
+        for (String name : shard) {
+          ProgressManager.checkCanceled();
+          if (nameProcessor.process(name)) {
+            accepted.add(name.hashCode());
+          }
+        }
+        synchronized (filter) {
+          filter.addAll(accepted.toNativeArray());
+        }
+        return true;
+      }
+    };
+    // matching doesn't touch PSI, so the shards don't need read actions of their own
+    if (!JobLauncher.getInstance().invokeConcurrentlyUnderProgress(shards, ProgressManager.getInstance().getProgressIndicator(), false, false,
+                                                                   shardProcessor)) {
+      throw new ProcessCanceledException();
+    }
+  }
+
   IdFilter getIdFilter(boolean withLibraries) {
     IdFilter idFilter = myIdFilter;
 
@@ -22,15 +22,18 @@ import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressIndicatorProvider;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiCompiledElement;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.codeStyle.MinusculeMatcher;
 import com.intellij.psi.codeStyle.NameUtil;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.proximity.PsiProximityComparator;
 import com.intellij.util.*;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.FList;
 import com.intellij.util.indexing.FindSymbolParameters;
 import com.intellij.util.indexing.IdFilter;
 import javax.annotation.Nonnull;
@@ -44,6 +47,9 @@ public class DefaultChooseByNameItemProvider implements ChooseByNameItemProvider
   private static final Logger LOG = Logger.getInstance("#com.intellij.ide.util.gotoByName.ChooseByNameIdea");
   private final Reference<PsiElement> myContext;
 
+  // names matched by the previous pattern, the next keystroke usually only has to filter them
+  private volatile MatchedNames myLastMatchedNames;
+
   public DefaultChooseByNameItemProvider(PsiElement context) {
     myContext = new WeakReference<PsiElement>(context);
   }
@@ -69,21 +75,42 @@ public class DefaultChooseByNameItemProvider implements ChooseByNameItemProvider
     if (model instanceof ChooseByNameModelEx) {
       indicator.checkCanceled();
       started = System.currentTimeMillis();
-      final MinusculeMatcher matcher = buildPatternMatcher(matchingPattern, NameUtil.MatchingCaseSensitivity.NONE);
-      ((ChooseByNameModelEx)model).processNames(new Processor<String>() {
-        @Override
-        public boolean process(String sequence) {
-          indicator.checkCanceled();
-          MatchResult result = matches(base, pattern, matcher, sequence);
-          if (result != null) {
-            collect.consume(result);
-            return true;
+      long modificationCount = base.myProject == null ? -1 : PsiModificationTracker.SERVICE.getInstance(base.myProject).getModificationCount();
+      MatchedNames previous = myLastMatchedNames;
+      if (previous != null && previous.canBeRefinedTo(model, everywhere, matchingPattern, modificationCount)) {
+        // the pattern was only extended, so whatever matches it now has matched the previous one too
+        processNamesByPattern(base, previous.myNames, matchingPattern, indicator, collect);
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("refined:" + (System.currentTimeMillis() - started) + "," + previous.myNames.length + "->" + collect.getResult().size());
+        }
+      }
+      else {
+        final MinusculeMatcher matcher = buildPatternMatcher(matchingPattern, NameUtil.MatchingCaseSensitivity.NONE);
+        Processor<String> nameProcessor = new Processor<String>() {
+          @Override
+          public boolean process(String sequence) {
+            indicator.checkCanceled();
+            MatchResult result = matches(base, pattern, matcher, sequence);
+            if (result != null) {
+              collect.consume(result);
+              return true;
+            }
+            return false;
           }
-          return false;
+        };
+        if (model instanceof ContributorsBasedGotoByModel && !(model instanceof CustomMatcherModel)) {
+          ((ContributorsBasedGotoByModel)model).processNames(nameProcessor, everywhere, matchingPattern);
+        }
+        else {
+          ((ChooseByNameModelEx)model).processNames(nameProcessor, everywhere);
+        }
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("loaded + matched:" + (System.currentTimeMillis() - started) + "," + collect.getResult().size());
         }
-      }, everywhere);
-      if (LOG.isDebugEnabled()) {
-        LOG.debug("loaded + matched:"+ (System.currentTimeMillis() - started)+ "," + collect.getResult().size());
+      }
+      indicator.checkCanceled(); // partial results of a canceled run must not be reused
+      if (!(model instanceof CustomMatcherModel)) {
+        myLastMatchedNames = new MatchedNames(model, everywhere, matchingPattern, modificationCount, collect.getResult());
       }
     } else {
       String[] names = base.getNames(everywhere);
@@ -373,7 +400,10 @@ public class DefaultChooseByNameItemProvider implements ChooseByNameItemProvider
         return null; // no matches appears valid result for "bad" pattern
       }
     }
-    return matcher.matches(name) ? new MatchResult(name, matcher.matchingDegree(name), matcher.isStartMatch(name)) : null;
+    // match once and score the same fragments, matching is the most expensive part here
+    FList<TextRange> fragments = matcher.matchingFragments(name);
+    if (fragments == null) return null;
+    return new MatchResult(name, matcher.matchingDegree(name, false, fragments), MinusculeMatcher.isStartMatch(fragments));
   }
 
   @Nonnull
@@ -381,6 +411,46 @@ public class DefaultChooseByNameItemProvider implements ChooseByNameItemProvider
     return NameUtil.buildMatcher(pattern, caseSensitivity);
   }
 
+  private static class MatchedNames {
+    private final Reference<ChooseByNameModel> myModel;
+    private final boolean myEverywhere;
+    private final String myPattern;
+    private final long myModificationCount;
+    private final String[] myNames;
+
+    private MatchedNames(@Nonnull ChooseByNameModel model,
+                         boolean everywhere,
+                         @Nonnull String pattern,
+                         long modificationCount,
+                         @Nonnull Collection<MatchResult> results) {
+      myModel = new WeakReference<ChooseByNameModel>(model);
+      myEverywhere = everywhere;
+      myPattern = pattern;
+      myModificationCount = modificationCount;
+      myNames = new String[results.size()];
+      int i = 0;
+      for (MatchResult result : results) {
+        myNames[i++] = result.elementName;
+      }
+    }
+
+    private boolean canBeRefinedTo(@Nonnull ChooseByNameModel model, boolean everywhere, @Nonnull String pattern, long modificationCount) {
+      return myModel.get() == model &&
+             myEverywhere == everywhere &&
+             myModificationCount == modificationCount &&
+             isNarrowing(myPattern, pattern);
+    }
+
+    // wildcards, spaces and separators have special meaning for the matcher, so only plain letters appended to a plain prefix are trusted
+    private static boolean isNarrowing(@Nonnull String previous, @Nonnull String current) {
+      if (previous.isEmpty() || current.length() <= previous.length() || !current.startsWith(previous)) return false;
+      for (int i = previous.startsWith("*") ? 1 : 0; i < current.length(); i++) {
+        if (!Character.isLetterOrDigit(current.charAt(i))) return false;
+      }
+      return true;
+    }
+  }
+
   private static class PathProximityComparator implements Comparator<Object> {
     @Nonnull
     private final PsiProximityComparator myProximityComparator;
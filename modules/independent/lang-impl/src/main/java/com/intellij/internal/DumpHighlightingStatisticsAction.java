@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.internal;
+
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer;
+import com.intellij.codeInsight.daemon.impl.DaemonCodeAnalyzerImpl;
+import com.intellij.codeInsight.daemon.impl.InspectionTimings;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.project.Project;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Dumps highlighting pass latency histograms and per-inspection execution times to the log and the clipboard.
+ */
+public class DumpHighlightingStatisticsAction extends DumpStatisticsActionBase {
+  @Nonnull
+  @Override
+  protected String getText(@Nonnull AnActionEvent e) {
+    StringBuilder sb = new StringBuilder();
+    Project project = e.getData(CommonDataKeys.PROJECT);
+    if (project != null) {
+      DaemonCodeAnalyzerImpl codeAnalyzer = (DaemonCodeAnalyzerImpl)DaemonCodeAnalyzer.getInstance(project);
+      sb.append("Highlighting passes:\n").append(codeAnalyzer.getPassStatistics()).append('\n');
+    }
+    sb.append("Local inspections:\n").append(InspectionTimings.getInstance());
+    return sb.toString();
+  }
+}
@@ -26,7 +26,6 @@ import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.wm.IdeFrame;
 import com.intellij.util.concurrency.AppExecutorUtil;
-import com.intellij.util.concurrency.EdtExecutorService;
 import com.intellij.util.concurrency.QueueProcessor;
 import com.intellij.util.messages.MessageBus;
 import com.intellij.util.messages.MessageBusConnection;
@@ -49,6 +48,9 @@ import java.util.concurrent.*;
  * Use {@link #addRequest} methods to schedule the requests.
  * Two requests scheduled with the same delay are executed sequentially, one after the other.
  * {@link #cancelAllRequests()} and {@link #cancelRequest(Runnable)} allow to cancel already scheduled requests.
+ * <p/>
+ * Requests of {@link ThreadToUse#SWING_THREAD} alarms are timed by a shared background thread and passed to EDT together
+ * with the other requests which have fired but haven't run yet, see {@link AlarmEdtDispatcher}.
  */
 public class Alarm implements Disposable {
   private static final Logger LOG = Logger.getInstance("#com.intellij.util.Alarm");
@@ -71,7 +73,7 @@ public class Alarm implements Disposable {
       myDisposed = true;
       cancelAllRequests();
 
-      if (myExecutorService != EdtExecutorService.getScheduledExecutorInstance()) {
+      if (myExecutorService != SwingTimer.EXECUTOR) {
         myExecutorService.shutdownNow();
       }
     }
@@ -81,6 +83,11 @@ public class Alarm implements Disposable {
     LOG.assertTrue(!myDisposed, "Already disposed");
   }
 
+  private static class SwingTimer {
+    // fired requests only get posted to EDT here, one thread keeps them in order
+    private static final ScheduledExecutorService EXECUTOR = AppExecutorUtil.createBoundedScheduledExecutorService("Alarm EDT timer", 1);
+  }
+
   public enum ThreadToUse {
     /**
      * Run request in Swing EventDispatchThread. This is the default.
@@ -127,8 +134,8 @@ public class Alarm implements Disposable {
     myThreadToUse = threadToUse;
 
     myExecutorService = threadToUse == ThreadToUse.SWING_THREAD ?
-                        // pass straight to EDT
-                        EdtExecutorService.getScheduledExecutorInstance() :
+                        // pass to EDT via the shared timer, see Request.run()
+                        SwingTimer.EXECUTOR :
 
                         // or pass to app pooled thread.
                         // have to restrict the number of running tasks because otherwise the (implicit) contract of
@@ -404,7 +411,7 @@ public class Alarm implements Disposable {
             SwingUtilities.invokeLater(scheduledTask);
           }
           else {
-            app.invokeLater(scheduledTask, myModalityState);
+            AlarmEdtDispatcher.dispatch(app, scheduledTask, myModalityState);
           }
         }
       }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.util;
+
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.util.concurrency.QueueProcessor;
+import com.intellij.util.ui.update.UpdateQueueStatistics;
+
+import javax.annotation.Nonnull;
+import org.jetbrains.annotations.TestOnly;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes fired requests of {@link Alarm.ThreadToUse#SWING_THREAD} alarms to EDT in batches: the requests with the same modality state
+ * which fire while the previous ones are still waiting for EDT are run by that same {@link Application#invokeLater} event,
+ * so a burst of alarms (e.g. every editor and tool window reacting to a single change) costs one event instead of one per request.
+ * <p/>
+ * Requests with the same modality state always run in the order they fired. A batch takes them from the queue one by one,
+ * so when a request pumps events (e.g. shows a modal dialog) the rest stay queued and are run, still in order,
+ * by the batch which the next fired request posts. A batch gives EDT back after {@link #FRAME_BUDGET_MS}
+ * so that input and painting go in between; the requests it hasn't run are left for the next one.
+ */
+final class AlarmEdtDispatcher {
+  static final long FRAME_BUDGET_MS = 10;
+  private static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(FRAME_BUDGET_MS);
+
+  // requests waiting for EDT per modality state, a state is removed once it has no requests and no batch posted
+  private static final Map<ModalityState, Pending> ourPending = new HashMap<>(); // guarded by itself
+
+  private static class Pending {
+    private final Deque<Runnable> myRequests = new ArrayDeque<>();
+    private boolean myBatchPosted;
+  }
+
+  private AlarmEdtDispatcher() {
+  }
+
+  static void dispatch(@Nonnull Application application, @Nonnull Runnable request, @Nonnull ModalityState modalityState) {
+    synchronized (ourPending) {
+      Pending pending = ourPending.get(modalityState);
+      if (pending == null) {
+        pending = new Pending();
+        ourPending.put(modalityState, pending);
+      }
+      pending.myRequests.addLast(request);
+      if (pending.myBatchPosted) return;
+      pending.myBatchPosted = true;
+    }
+    postBatch(application, modalityState);
+  }
+
+  @TestOnly
+  static int getPendingRequestCount() {
+    synchronized (ourPending) {
+      int count = 0;
+      for (Pending pending : ourPending.values()) {
+        count += pending.myRequests.size();
+      }
+      return count;
+    }
+  }
+
+  private static void postBatch(@Nonnull Application application, @Nonnull ModalityState modalityState) {
+    application.invokeLater(new Batch(application, modalityState), modalityState);
+  }
+
+  private static class Batch implements Runnable {
+    private final Application myApplication;
+    private final ModalityState myModalityState;
+
+    private Batch(@Nonnull Application application, @Nonnull ModalityState modalityState) {
+      myApplication = application;
+      myModalityState = modalityState;
+    }
+
+    @Override
+    public void run() {
+      synchronized (ourPending) {
+        Pending pending = ourPending.get(myModalityState);
+        if (pending == null) return;
+        // requests fired from now on post another batch, which runs in a nested event loop if one of the requests below starts it
+        pending.myBatchPosted = false;
+      }
+
+      long start = System.nanoTime();
+      int done = 0;
+      boolean overBudget = false;
+      boolean interrupted = false;
+      while (true) {
+        Runnable request = null;
+        boolean post = false;
+        synchronized (ourPending) {
+          Pending pending = ourPending.get(myModalityState);
+          if (pending == null) break;
+          if (pending.myRequests.isEmpty()) {
+            if (!pending.myBatchPosted) ourPending.remove(myModalityState);
+            break;
+          }
+          if (overBudget) {
+            // the rest stay queued in front of the ones fired later, the next batch runs them after the already queued events
+            interrupted = true;
+            post = !pending.myBatchPosted;
+            pending.myBatchPosted = true;
+          }
+          else {
+            request = pending.myRequests.pollFirst();
+          }
+        }
+        if (request == null) {
+          if (post) postBatch(myApplication, myModalityState);
+          break;
+        }
+
+        try {
+          QueueProcessor.runSafely(request);
+        }
+        catch (ProcessCanceledException ignored) {
+        }
+        done++;
+        overBudget = System.nanoTime() - start > FRAME_BUDGET_NANOS;
+      }
+      UpdateQueueStatistics.getInstance().edtBatchRun(done, System.nanoTime() - start, interrupted);
+    }
+
+    @Override
+    public String toString() {
+      return "Alarm requests batch " + myModalityState;
+    }
+  }
+}
@@ -40,6 +40,7 @@ public class MergingUpdateQueue implements Runnable, Disposable, Activatable {
   private volatile boolean mySuspended;
 
   private final Map<Update, Update> myScheduledUpdates = new TreeMap<Update, Update>();
+  private long myFirstQueuedAt; // System.nanoTime() when the oldest of myScheduledUpdates was queued, guarded by myScheduledUpdates
 
   private final Alarm myWaiterForMerge;
 
@@ -241,10 +242,16 @@ public class MergingUpdateQueue implements Runnable, Disposable, Activatable {
       public void run() {
         try {
           final Update[] all;
+          final long queuedAt;
 
           synchronized (myScheduledUpdates) {
             all = myScheduledUpdates.keySet().toArray(new Update[myScheduledUpdates.size()]);
             myScheduledUpdates.clear();
+            queuedAt = myFirstQueuedAt;
+          }
+
+          if (all.length > 0) {
+            UpdateQueueStatistics.getInstance().flushed(String.valueOf(myName), all.length, System.nanoTime() - queuedAt);
           }
 
           for (Update each : all) {
@@ -341,8 +348,11 @@ public class MergingUpdateQueue implements Runnable, Disposable, Activatable {
           return;
         }
 
-        if (active && myScheduledUpdates.isEmpty()) {
-          restartTimer();
+        if (myScheduledUpdates.isEmpty()) {
+          myFirstQueuedAt = System.nanoTime();
+          if (active) {
+            restartTimer();
+          }
         }
         put(update);
 
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.util.ui.update;
+
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.containers.ContainerUtil;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Totals of the UI update machinery:
+ * <ul>
+ * <li>per {@link MergingUpdateQueue} name - how many updates were flushed how many times, the largest number of updates
+ * flushed at once (queue depth), and how long the oldest of them waited from {@link MergingUpdateQueue#queue} till the flush</li>
+ * <li>EDT batches - how many fired {@link com.intellij.util.Alarm} requests were run by one EDT event,
+ * and how many batches exceeded the frame budget and had to give the EDT back before they were done</li>
+ * </ul>
+ */
+public class UpdateQueueStatistics {
+  private static final UpdateQueueStatistics ourInstance = new UpdateQueueStatistics();
+  private static final int MAX_QUEUES = 500;
+  private static final String OTHER_QUEUES = "<other queues>";
+
+  private final ConcurrentMap<String, QueueCounters> myQueues = ContainerUtil.newConcurrentMap();
+  private final AtomicLong myEdtBatches = new AtomicLong();
+  private final AtomicLong myEdtBatchedRequests = new AtomicLong();
+  private final AtomicLong myEdtBatchesOverBudget = new AtomicLong();
+  private final AtomicLong myEdtBatchNanos = new AtomicLong();
+  private final AtomicLong myMaxEdtBatch = new AtomicLong();
+
+  private static class QueueCounters {
+    private final AtomicLong myFlushes = new AtomicLong();
+    private final AtomicLong myUpdates = new AtomicLong();
+    private final AtomicLong myMaxDepth = new AtomicLong();
+    private final AtomicLong myLatencyNanos = new AtomicLong();
+    private final AtomicLong myMaxLatencyNanos = new AtomicLong();
+
+    @Override
+    public String toString() {
+      long flushes = myFlushes.get();
+      return "flushes=" + flushes +
+             " updates=" + myUpdates.get() +
+             " maxDepth=" + myMaxDepth.get() +
+             " avgLatency=" + (flushes == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(myLatencyNanos.get() / flushes)) + "ms" +
+             " maxLatency=" + TimeUnit.NANOSECONDS.toMillis(myMaxLatencyNanos.get()) + "ms";
+    }
+  }
+
+  @Nonnull
+  public static UpdateQueueStatistics getInstance() {
+    return ourInstance;
+  }
+
+  void flushed(@Nonnull String queueName, int updates, long latencyNanos) {
+    QueueCounters counters = myQueues.get(queueName);
+    if (counters == null) {
+      // some queue names are built at runtime, keep only the first ones and count the rest together
+      String key = myQueues.size() < MAX_QUEUES ? queueName : OTHER_QUEUES;
+      counters = ConcurrencyUtil.cacheOrGet(myQueues, key, new QueueCounters());
+    }
+    counters.myFlushes.incrementAndGet();
+    counters.myUpdates.addAndGet(updates);
+    updateMax(counters.myMaxDepth, updates);
+    counters.myLatencyNanos.addAndGet(latencyNanos);
+    updateMax(counters.myMaxLatencyNanos, latencyNanos);
+  }
+
+  public void edtBatchRun(int requests, long nanos, boolean overBudget) {
+    myEdtBatches.incrementAndGet();
+    myEdtBatchedRequests.addAndGet(requests);
+    myEdtBatchNanos.addAndGet(nanos);
+    if (overBudget) myEdtBatchesOverBudget.incrementAndGet();
+    updateMax(myMaxEdtBatch, requests);
+  }
+
+  private static void updateMax(@Nonnull AtomicLong max, long value) {
+    while (true) {
+      long current = max.get();
+      if (value <= current || max.compareAndSet(current, value)) return;
+    }
+  }
+
+  public long getEdtBatches() {
+    return myEdtBatches.get();
+  }
+
+  public long getEdtBatchedRequests() {
+    return myEdtBatchedRequests.get();
+  }
+
+  /**
+   * @return queue name to its totals in the {@link #toString()} format, sorted by name
+   */
+  @Nonnull
+  public Map<String, String> getQueueStatistics() {
+    Map<String, String> result = new TreeMap<>();
+    for (Map.Entry<String, QueueCounters> entry : myQueues.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().toString());
+    }
+    return result;
+  }
+
+  public void clear() {
+    myQueues.clear();
+    myEdtBatches.set(0);
+    myEdtBatchedRequests.set(0);
+    myEdtBatchesOverBudget.set(0);
+    myEdtBatchNanos.set(0);
+    myMaxEdtBatch.set(0);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    result.append("EDT batches: batches=").append(getEdtBatches())
+            .append(" requests=").append(getEdtBatchedRequests())
+            .append(" maxBatch=").append(myMaxEdtBatch.get())
+            .append(" overBudget=").append(myEdtBatchesOverBudget.get())
+            .append(" time=").append(TimeUnit.NANOSECONDS.toMillis(myEdtBatchNanos.get())).append("ms\n");
+    for (Map.Entry<String, String> entry : getQueueStatistics().entrySet()) {
+      result.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+    }
+    return result.toString();
+  }
+}
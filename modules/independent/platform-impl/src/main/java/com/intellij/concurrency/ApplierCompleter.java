@@ -29,10 +29,14 @@ import org.jetbrains.annotations.Nullable;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Executes processor on array elements in range from lo (inclusive) to hi (exclusive).
  * To do this it starts executing processor on first array items and, if it takes too much time, splits the work and forks the right half.
+ * "Too much time" is either the time already spent, or the time the rest of the range is expected to take at the per-item cost measured so far,
+ * so ranges of expensive items are split right away instead of after the first {@link #SPLIT_NANOS}.
  * The series of splits lead to linked list of forked sub tasks, each of which is a CountedCompleter of its own,
  * having this task as its parent.
  * After the first pass on the array, this task attempts to steal work from the recently forked off sub tasks,
@@ -44,6 +48,10 @@ import java.util.concurrent.CountedCompleter;
  * The exceptions from the sub tasks bubble up to the top and saved in {@link #throwable}.
  */
 class ApplierCompleter<T> extends CountedCompleter<Void> {
+  private static final long SPLIT_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+  // items to process before trusting the per-item cost estimate
+  private static final int MIN_ITEMS_TO_ESTIMATE = 4;
+
   private final boolean runInReadAction;
   private final boolean failFastOnAcquireReadAction;
   private final ProgressIndicator progressIndicator;
@@ -59,6 +67,18 @@ class ApplierCompleter<T> extends CountedCompleter<Void> {
 
   // if not null, the read action has failed and this list contains unfinished subtasks
   private final Collection<ApplierCompleter<T>> failedSubTasks;
+  @NotNull
+  private final Counters counters;
+
+  // shared by all the tasks of one invokeConcurrentlyUnderProgress() call
+  static class Counters {
+    final AtomicInteger forks = new AtomicInteger();
+    final AtomicInteger unforks = new AtomicInteger(); // forked tasks executed by the forking thread itself, the rest was stolen
+
+    int getSteals() {
+      return forks.get() - unforks.get();
+    }
+  }
 
   //private final List<ApplierCompleter> children = new ArrayList<ApplierCompleter>();
 
@@ -77,6 +97,7 @@ class ApplierCompleter<T> extends CountedCompleter<Void> {
                    int lo,
                    int hi,
                    @NotNull Collection<ApplierCompleter<T>> failedSubTasks,
+                   @NotNull Counters counters,
                    ApplierCompleter<T> next) {
     super(parent);
     this.runInReadAction = runInReadAction;
@@ -87,6 +108,7 @@ class ApplierCompleter<T> extends CountedCompleter<Void> {
     this.lo = lo;
     this.hi = hi;
     this.failedSubTasks = failedSubTasks;
+    this.counters = counters;
     this.next = next;
   }
 
@@ -125,7 +147,8 @@ class ApplierCompleter<T> extends CountedCompleter<Void> {
   @Nullable
   private ApplierCompleter<T> execAndForkSubTasks() {
     int hi = this.hi;
-    long start = System.currentTimeMillis();
+    long start = System.nanoTime();
+    int processed = 0; // since the last split
     ApplierCompleter<T> right = null;
     Throwable throwable = null;
 
@@ -135,16 +158,22 @@ class ApplierCompleter<T> extends CountedCompleter<Void> {
         if (!processor.process(array.get(i))) {
           throw new ComputationAbortedException();
         }
-        long finish = System.currentTimeMillis();
+        processed++;
+        long finish = System.nanoTime();
         long elapsed = finish - start;
-        if (elapsed > 5 && hi - i >= 2 && getSurplusQueuedTaskCount() <= JobSchedulerImpl.getJobPoolParallelism()) {
+        int remaining = hi - i - 1;
+        boolean tooLong = elapsed > SPLIT_NANOS ||
+                          processed >= MIN_ITEMS_TO_ESTIMATE && elapsed / processed * remaining > 2 * SPLIT_NANOS;
+        if (tooLong && hi - i >= 2 && getSurplusQueuedTaskCount() <= JobSchedulerImpl.getJobPoolParallelism()) {
           int mid = i + hi >>> 1;
-          right = new ApplierCompleter<>(this, runInReadAction, failFastOnAcquireReadAction, progressIndicator, array, processor, mid, hi, failedSubTasks, right);
+          right = new ApplierCompleter<>(this, runInReadAction, failFastOnAcquireReadAction, progressIndicator, array, processor, mid, hi, failedSubTasks, counters, right);
           //children.add(right);
           addToPendingCount(1);
+          counters.forks.incrementAndGet();
           right.fork();
           hi = mid;
           start = finish;
+          processed = 0;
         }
       }
 
@@ -223,6 +252,7 @@ class ApplierCompleter<T> extends CountedCompleter<Void> {
     while (right != null) {
       ProgressManager.checkCanceled();
       if (right.tryUnfork()) {
+        counters.unforks.incrementAndGet();
         right.execAndForkSubTasks();
         result = moreImportant(result, right.throwable);
       }
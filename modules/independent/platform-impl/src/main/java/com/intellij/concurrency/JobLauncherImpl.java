@@ -60,9 +60,20 @@ public class JobLauncherImpl extends JobLauncher {
     HeavyProcessLatch.INSTANCE.stopThreadPrioritizing();
 
     List<ApplierCompleter<T>> failedSubTasks = Collections.synchronizedList(new ArrayList<>());
-    ApplierCompleter<T> applier = new ApplierCompleter<>(null, runInReadAction, failFastOnAcquireReadAction, wrapper, things, thingProcessor, 0, things.size(), failedSubTasks, null);
+    ApplierCompleter.Counters counters = new ApplierCompleter.Counters();
+    ApplierCompleter<T> applier = new ApplierCompleter<>(null, runInReadAction, failFastOnAcquireReadAction, wrapper, things, thingProcessor, 0, things.size(), failedSubTasks, counters, null);
+    boolean nested = isInCommonPool();
+    long start = System.nanoTime();
     try {
-      ForkJoinPool.commonPool().invoke(applier);
+      if (nested) {
+        // called from inside another concurrent computation: start right here instead of queueing the task behind the outer one's
+        // and waiting for it. The split off parts go to this worker's own queue, so while they are not stolen
+        // this thread executes them itself, and otherwise helps the pool to complete them when joining.
+        applier.invoke();
+      }
+      else {
+        ForkJoinPool.commonPool().invoke(applier);
+      }
       if (applier.throwable != null) throw applier.throwable;
     }
     catch (ApplierCompleter.ComputationAbortedException e) {
@@ -87,10 +98,29 @@ public class JobLauncherImpl extends JobLauncher {
     catch (Throwable e) {
       throw new RuntimeException(e);
     }
+    finally {
+      recordStatistics(things.size(), System.nanoTime() - start, nested, counters);
+    }
     assert applier.isDone();
     return applier.completeTaskWhichFailToAcquireReadAction();
   }
 
+  private static boolean isInCommonPool() {
+    Thread thread = Thread.currentThread();
+    return thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread)thread).getPool() == ForkJoinPool.commonPool();
+  }
+
+  private static void recordStatistics(int items, long nanos, boolean nested, @Nonnull ApplierCompleter.Counters counters) {
+    int forks = counters.forks.get();
+    int steals = counters.getSteals();
+    JobLauncherStatistics.getInstance().record(items, nanos, nested, forks, steals);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(items + " items in " + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms" +
+                " (" + JobLauncherStatistics.itemsPerSecond(items, nanos) + " items/s)" +
+                (nested ? ", nested" : "") + ", forks=" + forks + ", steals=" + steals);
+    }
+  }
+
   // if {@code things} are too few to be processed in the real pool, returns TRUE if processed successfully, FALSE if not
   // returns null if things need to be processed in the real pool
   private static <T> Boolean processImmediatelyIfTooFew(@Nonnull final List<T> things,
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.concurrency;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Totals of the {@link JobLauncherImpl#invokeConcurrentlyUnderProgress} calls which went to the pool:
+ * how many items were processed how fast, how many times the work was split, and how many of the split off parts
+ * were executed by other threads (stolen) rather than by the thread which split them.
+ * Every call is also logged in debug mode of {@code #com.intellij.concurrency.JobLauncherImpl}.
+ */
+public class JobLauncherStatistics {
+  private static final JobLauncherStatistics ourInstance = new JobLauncherStatistics();
+
+  private final AtomicLong myCalls = new AtomicLong();
+  private final AtomicLong myNestedCalls = new AtomicLong();
+  private final AtomicLong myItems = new AtomicLong();
+  private final AtomicLong myNanos = new AtomicLong();
+  private final AtomicLong myForks = new AtomicLong();
+  private final AtomicLong mySteals = new AtomicLong();
+
+  @Nonnull
+  public static JobLauncherStatistics getInstance() {
+    return ourInstance;
+  }
+
+  void record(int items, long nanos, boolean nested, int forks, int steals) {
+    myCalls.incrementAndGet();
+    if (nested) myNestedCalls.incrementAndGet();
+    myItems.addAndGet(items);
+    myNanos.addAndGet(nanos);
+    myForks.addAndGet(forks);
+    mySteals.addAndGet(steals);
+  }
+
+  public long getCalls() {
+    return myCalls.get();
+  }
+
+  /**
+   * @return calls made from a pool thread, i.e. from inside another concurrent computation
+   */
+  public long getNestedCalls() {
+    return myNestedCalls.get();
+  }
+
+  public long getItems() {
+    return myItems.get();
+  }
+
+  public long getNanos() {
+    return myNanos.get();
+  }
+
+  public long getForks() {
+    return myForks.get();
+  }
+
+  public long getSteals() {
+    return mySteals.get();
+  }
+
+  static long itemsPerSecond(long items, long nanos) {
+    return nanos <= 0 ? 0 : items * TimeUnit.SECONDS.toNanos(1) / nanos;
+  }
+
+  public void clear() {
+    myCalls.set(0);
+    myNestedCalls.set(0);
+    myItems.set(0);
+    myNanos.set(0);
+    myForks.set(0);
+    mySteals.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "calls=" + getCalls() +
+           " nested=" + getNestedCalls() +
+           " items=" + getItems() +
+           " time=" + TimeUnit.NANOSECONDS.toMillis(getNanos()) + "ms" +
+           " items/s=" + itemsPerSecond(getItems(), getNanos()) +
+           " forks=" + getForks() +
+           " steals=" + getSteals();
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.internal;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.impl.ApplicationImpl;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Dumps write wait and read hold histograms of the application lock, and the readers which delayed write actions,
+ * to the log and the clipboard.
+ */
+public class DumpReadWriteLockStatisticsAction extends DumpStatisticsActionBase {
+  @Nonnull
+  @Override
+  protected String getText(@Nonnull AnActionEvent e) {
+    return ((ApplicationImpl)ApplicationManager.getApplication()).getLockStatistics().toString();
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.internal;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.ide.CopyPasteManager;
+import com.intellij.openapi.project.DumbAwareAction;
+import consulo.annotations.RequiredDispatchThread;
+
+import javax.annotation.Nonnull;
+import java.awt.datatransfer.StringSelection;
+
+/**
+ * Base of the internal actions which dump some collected statistics to the log and the clipboard.
+ */
+public abstract class DumpStatisticsActionBase extends DumbAwareAction {
+  private static final Logger LOG = Logger.getInstance("#com.intellij.internal.DumpStatisticsActionBase");
+
+  @Nonnull
+  protected abstract String getText(@Nonnull AnActionEvent e);
+
+  @RequiredDispatchThread
+  @Override
+  public void actionPerformed(@Nonnull AnActionEvent e) {
+    String text = getText(e);
+    System.out.println(text);
+    LOG.info(text);
+    try {
+      CopyPasteManager.getInstance().setContents(new StringSelection(text));
+    }
+    catch (Exception ignore) {
+    }
+  }
+}
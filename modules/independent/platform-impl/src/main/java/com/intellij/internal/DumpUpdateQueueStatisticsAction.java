@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.internal;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.util.ui.update.UpdateQueueStatistics;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Dumps totals of {@link com.intellij.util.ui.update.MergingUpdateQueue}s and batched {@link com.intellij.util.Alarm} requests to the log and the clipboard.
+ */
+public class DumpUpdateQueueStatisticsAction extends DumpStatisticsActionBase {
+  @Nonnull
+  @Override
+  protected String getText(@Nonnull AnActionEvent e) {
+    return UpdateQueueStatistics.getInstance().toString();
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.internal;
+
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.ToggleAction;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.impl.ApplicationImpl;
+import com.intellij.openapi.application.impl.ReadWriteLockStatistics;
+import com.intellij.openapi.project.DumbAware;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Turns on recording of read lock hold times per thread, see {@link DumpReadWriteLockStatisticsAction}.
+ */
+public class RecordReadActionDurationsAction extends ToggleAction implements DumbAware {
+  @Override
+  public boolean isSelected(AnActionEvent e) {
+    return getStatistics().isRecordingReadHolds();
+  }
+
+  @Override
+  public void setSelected(AnActionEvent e, boolean state) {
+    getStatistics().setRecordingReadHolds(state);
+  }
+
+  @Nonnull
+  private static ReadWriteLockStatistics getStatistics() {
+    return ((ApplicationImpl)ApplicationManager.getApplication()).getLockStatistics();
+  }
+}
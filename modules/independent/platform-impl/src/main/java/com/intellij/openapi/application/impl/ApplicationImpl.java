@@ -100,6 +100,8 @@ public class ApplicationImpl extends PlatformComponentManagerImpl implements App
   private static final Logger LOG = Logger.getInstance("#com.intellij.application.impl.ApplicationImpl");
 
   final ReadMostlyRWLock myLock;
+  private final AtomicNotNullLazyValue<YieldingReadActionExecutor> myYieldingReadActionExecutor =
+          AtomicNotNullLazyValue.createValue(() -> new YieldingReadActionExecutor(this));
 
   private final ModalityInvokator myInvokator = new ModalityInvokatorImpl();
 
@@ -321,6 +323,22 @@ public class ApplicationImpl extends PlatformComponentManagerImpl implements App
     return myLock.isReadLockedByThisThread();
   }
 
+  /**
+   * @return write wait times, read lock hold times and the readers delaying write actions
+   */
+  @Nonnull
+  public ReadWriteLockStatistics getLockStatistics() {
+    return myLock.statistics;
+  }
+
+  /**
+   * @return executor for background read actions which are restarted instead of delaying write actions
+   */
+  @Nonnull
+  public YieldingReadActionExecutor getYieldingReadActionExecutor() {
+    return myYieldingReadActionExecutor.getValue();
+  }
+
   private void loadApplicationComponents() {
     PluginManagerCore.BUILD_NUMBER = ApplicationInfoImpl.getShadowInstance().getBuild().asString();
     PluginManagerCore.initPlugins(mySplashRef.get());
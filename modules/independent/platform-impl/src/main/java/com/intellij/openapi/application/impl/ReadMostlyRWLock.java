@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 
 /**
@@ -57,6 +58,8 @@ class ReadMostlyRWLock {
 
   private volatile SuspensionId currentSuspension;
 
+  final ReadWriteLockStatistics statistics = new ReadWriteLockStatistics();
+
   ReadMostlyRWLock(@Nonnull Thread writeThread) {
     this.writeThread = writeThread;
   }
@@ -68,6 +71,7 @@ class ReadMostlyRWLock {
     private volatile boolean readRequested; // this reader is requesting or obtained read access. Written by reader thread only, read by writer.
     private volatile boolean blocked;       // this reader is blocked waiting for the writer thread to release write lock. Written by reader thread only, read by writer.
     private boolean impatientReads; // true if should throw PCE on contented read lock
+    private long readLockedAt;      // System.nanoTime() of the read lock acquisition, 0 if not recorded. Accessed by reader thread only.
     Reader(@Nonnull Thread readerThread) {
       thread = readerThread;
     }
@@ -151,6 +155,10 @@ class ReadMostlyRWLock {
     checkReadThreadAccess();
     Reader status = R.get();
     status.readRequested = false;
+    if (status.readLockedAt != 0) {
+      statistics.readHeld(status.thread, System.nanoTime() - status.readLockedAt);
+      status.readLockedAt = 0;
+    }
     if (writeRequested) {
       LockSupport.unpark(writeThread);  // parked by writeLock()
     }
@@ -169,6 +177,9 @@ class ReadMostlyRWLock {
       }
       status.readRequested = true;
       if (!writeRequested) {
+        if (statistics.isRecordingReadHolds()) {
+          status.readLockedAt = System.nanoTime();
+        }
         return true;
       }
       status.readRequested = false;
@@ -183,13 +194,20 @@ class ReadMostlyRWLock {
     assert !writeAcquired;
 
     writeRequested = true;
+    long start = System.nanoTime();
+    boolean sampled = false;
     for (int iter=0; ;iter++) {
       if (areAllReadersIdle()) {
         writeAcquired = true;
+        statistics.writeWaited(System.nanoTime() - start);
         break;
       }
 
       if (iter > SPIN_TO_WAIT_FOR_LOCK) {
+        if (!sampled && System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(ReadWriteLockStatistics.SLOW_WRITE_WAIT_MS)) {
+          sampled = true;
+          sampleBlockingReaders();
+        }
         LockSupport.parkNanos(this, 1000000);  // unparked by readUnlock
       }
       else {
@@ -297,6 +315,7 @@ class ReadMostlyRWLock {
     writeRequested = true;
     if (areAllReadersIdle()) {
       writeAcquired = true;
+      statistics.writeWaited(0);
       return true;
     }
 
@@ -304,6 +323,15 @@ class ReadMostlyRWLock {
     return false;
   }
 
+  // the readers which still hold the lock are the ones the writer waits for
+  private void sampleBlockingReaders() {
+    for (Reader reader : readers) {
+      if (reader.readRequested) {
+        statistics.blockingReader(reader.thread.getStackTrace());
+      }
+    }
+  }
+
   private boolean areAllReadersIdle() {
     for (Reader reader : readers) {
       if (reader.readRequested) {
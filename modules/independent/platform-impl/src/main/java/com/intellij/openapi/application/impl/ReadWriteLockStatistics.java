@@ -0,0 +1,176 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.openapi.application.impl;
+
+import com.intellij.util.ConcurrencyUtil;
+import com.intellij.util.ExponentialHistogram;
+import com.intellij.util.containers.ContainerUtil;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contention statistics of the application read-write lock, collected by {@link ReadMostlyRWLock}:
+ * <ul>
+ * <li>write waits - time from the write lock request till all readers have released the lock, always collected</li>
+ * <li>blocking readers - stack traces of the threads holding the read lock when the writer has been waiting
+ * for longer than {@link #SLOW_WRITE_WAIT_MS}, sampled once per write, always collected</li>
+ * <li>yields - time from the cancellation of a {@link YieldingReadActionExecutor} task by a write action
+ * till the task has released the read lock, always collected</li>
+ * <li>read holds - time the read lock is held, per thread name without the trailing number (so that all threads of a pool
+ * go together), collected only while {@link #setRecordingReadHolds recording}
+ * since read actions are too frequent to take the time of every one of them for free</li>
+ * </ul>
+ * Buckets are exponential: [0,1), [1,2), [2,4) ... microseconds, the last bucket is open-ended.
+ * {@link #toString()} is the export format: plain text, one histogram per line.
+ */
+public class ReadWriteLockStatistics {
+  public static final int BUCKET_COUNT = 24;
+  public static final long SLOW_WRITE_WAIT_MS = 50;
+  private static final int MAX_BLOCKING_SAMPLES = 100;
+  private static final int SAMPLE_DEPTH = 15;
+  private static final String OTHER_SAMPLES = "<other stacks>";
+  private static final int MAX_READ_HOLD_THREADS = 100;
+  private static final String OTHER_THREADS = "<other threads>";
+
+  private volatile boolean myRecordingReadHolds;
+  private final ConcurrentMap<String, ExponentialHistogram> myReadHolds = ContainerUtil.newConcurrentMap();
+  private final ExponentialHistogram myWriteWaits = new ExponentialHistogram(TimeUnit.MICROSECONDS, BUCKET_COUNT);
+  private final ExponentialHistogram myYields = new ExponentialHistogram(TimeUnit.MICROSECONDS, BUCKET_COUNT);
+  private final ConcurrentMap<String, AtomicInteger> myBlockingReaders = ContainerUtil.newConcurrentMap();
+
+  public boolean isRecordingReadHolds() {
+    return myRecordingReadHolds;
+  }
+
+  public void setRecordingReadHolds(boolean recording) {
+    myRecordingReadHolds = recording;
+  }
+
+  void readHeld(@Nonnull Thread thread, long nanos) {
+    String name = threadKind(thread.getName());
+    ExponentialHistogram histogram = myReadHolds.get(name);
+    if (histogram == null) {
+      // names of the other threads may be unique as well, keep only the first ones and count the rest together
+      name = myReadHolds.size() < MAX_READ_HOLD_THREADS ? name : OTHER_THREADS;
+      histogram = ConcurrencyUtil.cacheOrGet(myReadHolds, name, new ExponentialHistogram(TimeUnit.MICROSECONDS, BUCKET_COUNT));
+    }
+    histogram.record(nanos);
+  }
+
+  // pool threads are numbered and get new numbers when recreated: "ApplicationImpl pooled thread 12" -> "ApplicationImpl pooled thread"
+  @Nonnull
+  static String threadKind(@Nonnull String threadName) {
+    int end = threadName.length();
+    while (end > 0) {
+      char c = threadName.charAt(end - 1);
+      if (!Character.isDigit(c) && " #-/:_".indexOf(c) < 0) break;
+      end--;
+    }
+    return end == 0 ? threadName : threadName.substring(0, end);
+  }
+
+  void writeWaited(long nanos) {
+    myWriteWaits.record(nanos);
+  }
+
+  void yielded(long nanos) {
+    myYields.record(nanos);
+  }
+
+  void blockingReader(@Nonnull StackTraceElement[] stack) {
+    StringBuilder sample = new StringBuilder();
+    for (int i = 0; i < Math.min(stack.length, SAMPLE_DEPTH); i++) {
+      sample.append("\tat ").append(stack[i]).append('\n');
+    }
+    String key = sample.toString();
+    AtomicInteger count = myBlockingReaders.get(key);
+    if (count == null) {
+      // the set of distinct stacks is unbounded, keep only the first ones and count the rest together
+      key = myBlockingReaders.size() < MAX_BLOCKING_SAMPLES ? key : OTHER_SAMPLES;
+      count = ConcurrencyUtil.cacheOrGet(myBlockingReaders, key, new AtomicInteger());
+    }
+    count.incrementAndGet();
+  }
+
+  // lower bound of the bucket, in microseconds
+  public static long bucketStartMicros(int bucket) {
+    return ExponentialHistogram.bucketStart(bucket);
+  }
+
+  @Nonnull
+  public long[] getWriteWaitHistogram() {
+    return myWriteWaits.toArray();
+  }
+
+  @Nonnull
+  public long[] getYieldHistogram() {
+    return myYields.toArray();
+  }
+
+  /**
+   * @return thread name to read hold histogram, sorted by name
+   */
+  @Nonnull
+  public Map<String, long[]> getReadHoldHistograms() {
+    Map<String, long[]> result = new TreeMap<>();
+    for (Map.Entry<String, ExponentialHistogram> entry : myReadHolds.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().toArray());
+    }
+    return result;
+  }
+
+  /**
+   * @return stack traces of the read lock holders which delayed a write action, the most frequent first
+   */
+  @Nonnull
+  public List<Map.Entry<String, Integer>> getBlockingReaderSamples() {
+    Map<String, Integer> samples = new TreeMap<>();
+    for (Map.Entry<String, AtomicInteger> entry : myBlockingReaders.entrySet()) {
+      samples.put(entry.getKey(), entry.getValue().get());
+    }
+    List<Map.Entry<String, Integer>> result = new ArrayList<>(samples.entrySet());
+    result.sort((e1, e2) -> Integer.compare(e2.getValue(), e1.getValue()));
+    return result;
+  }
+
+  public void clear() {
+    myReadHolds.clear();
+    myBlockingReaders.clear();
+    myWriteWaits.clear();
+    myYields.clear();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    myWriteWaits.appendTo(result, "write wait");
+    myYields.appendTo(result, "yield");
+    for (Map.Entry<String, ExponentialHistogram> entry : new TreeMap<>(myReadHolds).entrySet()) {
+      entry.getValue().appendTo(result, "read hold [" + entry.getKey() + "]");
+    }
+    for (Map.Entry<String, Integer> entry : getBlockingReaderSamples()) {
+      result.append("blocking reader, ").append(entry.getValue()).append(" times:\n").append(entry.getKey());
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.openapi.application.impl;
+
+import com.intellij.openapi.application.ApplicationAdapter;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
+
+import javax.annotation.Nonnull;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs read actions in background which give way to write actions: when a write action is about to start, every running task
+ * is canceled (its {@link ProgressManager#checkCanceled()} throws), and is restarted from the beginning after the write action has finished.
+ * <p/>
+ * Unlike {@link com.intellij.openapi.progress.util.ProgressIndicatorUtils#scheduleWithWriteActionPriority} there is a single
+ * application listener for all the tasks, so a write action doesn't have to go through a listener per background task.
+ * <p/>
+ * Tasks must be restartable (i.e. have no side effects visible before they complete) and should call
+ * {@link ProgressManager#checkCanceled()} often, the write action waits for them till then.
+ * How long it waits is recorded in {@link ReadWriteLockStatistics}.
+ *
+ * @see ApplicationImpl#getYieldingReadActionExecutor()
+ */
+public class YieldingReadActionExecutor {
+  private static final long RETRY_DELAY_MS = 10;
+
+  private final ApplicationImpl myApplication;
+  private final ExecutorService myExecutor =
+          AppExecutorUtil.createBoundedApplicationPoolExecutor("Yielding read actions", Runtime.getRuntime().availableProcessors());
+  private final Set<Task> myRunning = ContainerUtil.newConcurrentSet();
+  // canceled by a write action, waiting for it to finish
+  private final Queue<Task> myPostponed = new ConcurrentLinkedQueue<>();
+
+  private static class Task {
+    private final Runnable myAction;
+    private final CompletableFuture<Void> myFuture = new CompletableFuture<>();
+    private volatile ProgressIndicator myIndicator;
+    private volatile long myYieldedAt; // System.nanoTime() of the cancellation by a write action, 0 if not canceled
+
+    private Task(@Nonnull Runnable action) {
+      myAction = action;
+    }
+
+    private void yieldToWriteAction() {
+      ProgressIndicator indicator = myIndicator;
+      if (indicator != null && !indicator.isCanceled()) {
+        myYieldedAt = System.nanoTime();
+        indicator.cancel();
+      }
+    }
+
+    @Override
+    public String toString() {
+      return myAction.toString();
+    }
+  }
+
+  YieldingReadActionExecutor(@Nonnull ApplicationImpl application) {
+    myApplication = application;
+    application.addApplicationListener(new ApplicationAdapter() {
+      @Override
+      public void beforeWriteActionStart(@Nonnull Object action) {
+        for (Task task : myRunning) {
+          task.yieldToWriteAction();
+        }
+      }
+
+      @Override
+      public void afterWriteActionFinished(@Nonnull Object action) {
+        resubmitPostponed();
+      }
+    });
+  }
+
+  /**
+   * Schedules the action to be run in background inside a read action, restarting it after every write action which interrupts it.
+   *
+   * @return a future which completes when the action has run till the end without interruption.
+   * Canceling it cancels the action (if it's running) and prevents further restarts.
+   */
+  @Nonnull
+  public CompletableFuture<Void> submit(@Nonnull Runnable readAction) {
+    Task task = new Task(readAction);
+    task.myFuture.whenComplete((result, error) -> {
+      ProgressIndicator indicator = task.myIndicator;
+      if (indicator != null && task.myFuture.isCancelled()) indicator.cancel();
+    });
+    schedule(task);
+    return task.myFuture;
+  }
+
+  private void schedule(@Nonnull Task task) {
+    myExecutor.execute(() -> run(task));
+  }
+
+  private void run(@Nonnull Task task) {
+    if (task.myFuture.isDone()) return;
+    if (myApplication.isDisposed()) {
+      task.myFuture.cancel(false);
+      return;
+    }
+    if (myApplication.isWriteActionPending() || myApplication.isWriteActionInProgress()) {
+      postpone(task);
+      return;
+    }
+
+    ProgressIndicator indicator = new ProgressIndicatorBase();
+    task.myYieldedAt = 0;
+    task.myIndicator = indicator;
+    myRunning.add(task);
+    boolean started;
+    boolean[] finished = {false};
+    boolean[] writePending = {false};
+    try {
+      started = myApplication.tryRunReadAction(() -> {
+        // the write action may have notified the listeners before this task got into myRunning,
+        // and is about to wait for the read lock, so give way to it right away
+        if (myApplication.isWriteActionPending()) {
+          writePending[0] = true;
+          return;
+        }
+        try {
+          ProgressManager.getInstance().runProcess(task.myAction, indicator);
+          finished[0] = true;
+        }
+        catch (ProcessCanceledException ignore) {
+        }
+      });
+    }
+    catch (Throwable e) {
+      task.myFuture.completeExceptionally(e);
+      return;
+    }
+    finally {
+      myRunning.remove(task);
+      task.myIndicator = null;
+    }
+
+    long yieldedAt = task.myYieldedAt;
+    if (yieldedAt != 0) {
+      myApplication.getLockStatistics().yielded(System.nanoTime() - yieldedAt);
+    }
+
+    if (finished[0]) {
+      task.myFuture.complete(null);
+    }
+    else if (yieldedAt != 0 || !started || writePending[0]) {
+      // interrupted by a write action or couldn't even start because of it
+      postpone(task);
+    }
+    else {
+      // canceled by somebody else
+      task.myFuture.cancel(false);
+    }
+  }
+
+  private void postpone(@Nonnull Task task) {
+    myPostponed.offer(task);
+    // the write action might have finished before the task got here, don't wait for the next one;
+    // retry a bit later rather than immediately, the read lock may still be unavailable (e.g. write action suspension)
+    if (!myApplication.isWriteActionPending() && !myApplication.isWriteActionInProgress()) {
+      AppExecutorUtil.getAppScheduledExecutorService().schedule(this::resubmitPostponed, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void resubmitPostponed() {
+    Task task;
+    while ((task = myPostponed.poll()) != null) {
+      schedule(task);
+    }
+  }
+}
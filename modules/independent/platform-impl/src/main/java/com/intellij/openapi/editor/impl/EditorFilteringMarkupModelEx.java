@@ -200,6 +200,16 @@ public class EditorFilteringMarkupModelEx implements MarkupModelEx {
     myDelegate.changeAttributesInBatch(highlighter, changeAttributesAction);
   }
 
+  @Override
+  public void runInBulkUpdate(@Nonnull Runnable action) {
+    myDelegate.runInBulkUpdate(action);
+  }
+
+  @Override
+  public boolean isInBulkUpdate() {
+    return myDelegate.isInBulkUpdate();
+  }
+
   @Override
   public void removeHighlighter(@Nonnull RangeHighlighter rangeHighlighter) {
     myDelegate.removeHighlighter(rangeHighlighter);
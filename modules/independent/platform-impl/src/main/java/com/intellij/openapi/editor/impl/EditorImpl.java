@@ -391,6 +391,14 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
     }
 
     myMarkupModelListener = new MarkupModelListener() {
+      // markup bulk update state: changes are accumulated and repainted once when the outermost bulk update finishes
+      private int myBulkUpdateDepth;
+      private int myBulkStart = Integer.MAX_VALUE;
+      private int myBulkEnd = Integer.MIN_VALUE;
+      private boolean myBulkRenderersChanged;
+      private boolean myBulkFontStyleOrColorChanged;
+      private boolean myBulkErrorStripeNeedsRepaint;
+
       private boolean areRenderersInvolved(@Nonnull RangeHighlighterEx highlighter) {
         return highlighter.getCustomRenderer() != null ||
                highlighter.getGutterIconRenderer() != null ||
@@ -412,11 +420,49 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
       public void attributesChanged(@Nonnull RangeHighlighterEx highlighter, boolean renderersChanged, boolean fontStyleOrColorChanged) {
         if (myDocument.isInBulkUpdate()) return; // bulkUpdateFinished() will repaint anything
 
+        boolean errorStripeNeedsRepaint = renderersChanged || highlighter.getErrorStripeMarkColor() != null;
+        int textLength = myDocument.getTextLength();
+        int start = Math.min(Math.max(highlighter.getAffectedAreaStartOffset(), 0), textLength);
+        int end = Math.min(Math.max(highlighter.getAffectedAreaEndOffset(), 0), textLength);
+
+        if (myBulkUpdateDepth > 0) {
+          myBulkStart = Math.min(myBulkStart, start);
+          myBulkEnd = Math.max(myBulkEnd, end);
+          myBulkRenderersChanged |= renderersChanged;
+          myBulkFontStyleOrColorChanged |= fontStyleOrColorChanged && start != end;
+          myBulkErrorStripeNeedsRepaint |= errorStripeNeedsRepaint;
+          return;
+        }
+        rangeChanged(start, end, renderersChanged, fontStyleOrColorChanged, errorStripeNeedsRepaint);
+      }
+
+      @Override
+      public void bulkUpdateStarted() {
+        myBulkUpdateDepth++;
+      }
+
+      @Override
+      public void bulkUpdateFinished() {
+        if (--myBulkUpdateDepth > 0) return;
+        myBulkUpdateDepth = 0;
+        int start = myBulkStart;
+        int end = myBulkEnd;
+        boolean renderersChanged = myBulkRenderersChanged;
+        boolean fontStyleOrColorChanged = myBulkFontStyleOrColorChanged;
+        boolean errorStripeNeedsRepaint = myBulkErrorStripeNeedsRepaint;
+        myBulkStart = Integer.MAX_VALUE;
+        myBulkEnd = Integer.MIN_VALUE;
+        myBulkRenderersChanged = myBulkFontStyleOrColorChanged = myBulkErrorStripeNeedsRepaint = false;
+
+        if (start > end || myDocument.isInBulkUpdate()) return; // nothing changed
+        int textLength = myDocument.getTextLength();
+        rangeChanged(Math.min(start, textLength), Math.min(end, textLength), renderersChanged, fontStyleOrColorChanged, errorStripeNeedsRepaint);
+      }
+
+      private void rangeChanged(int start, int end, boolean renderersChanged, boolean fontStyleOrColorChanged, boolean errorStripeNeedsRepaint) {
         if (renderersChanged) {
           updateGutterSize();
         }
-
-        boolean errorStripeNeedsRepaint = renderersChanged || highlighter.getErrorStripeMarkColor() != null;
         if (myDocumentChangeInProgress) {
           // postpone repaint request, as folding model can be in inconsistent state and so coordinate
           // conversions might give incorrect results
@@ -424,11 +470,6 @@ public final class EditorImpl extends UserDataHolderBase implements EditorEx, Hi
           return;
         }
 
-        int textLength = myDocument.getTextLength();
-
-        int start = Math.min(Math.max(highlighter.getAffectedAreaStartOffset(), 0), textLength);
-        int end = Math.min(Math.max(highlighter.getAffectedAreaEndOffset(), 0), textLength);
-
         int startLine = start == -1 ? 0 : myDocument.getLineNumber(start);
         int endLine = end == -1 ? myDocument.getLineCount() : myDocument.getLineNumber(end);
         if (start != end && fontStyleOrColorChanged) {
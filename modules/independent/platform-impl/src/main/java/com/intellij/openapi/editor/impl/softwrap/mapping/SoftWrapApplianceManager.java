@@ -17,6 +17,7 @@ package com.intellij.openapi.editor.impl.softwrap.mapping;
 
 import com.intellij.diagnostic.Dumpable;
 import com.intellij.diagnostic.LogMessageEx;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Attachment;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.*;
@@ -32,6 +33,7 @@ import com.intellij.openapi.editor.impl.softwrap.SoftWrapsStorage;
 import com.intellij.openapi.editor.impl.view.IterationState;
 import com.intellij.openapi.editor.markup.TextAttributes;
 import com.intellij.openapi.util.Segment;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.DocumentUtil;
 import org.intellij.lang.annotations.JdkConstants;
@@ -105,6 +107,14 @@ public class SoftWrapApplianceManager implements Dumpable {
   private boolean                        myInProgress;
   private boolean                        myIsDirty = true;
   private IncrementalCacheUpdateEvent    myDocumentChangedEvent;
+
+  /**
+   * Parts of a large document which still wait for soft wraps calculation after a complete recalculation. The visible part
+   * is processed at once, these ones are processed later, a batch of lines per EDT event (see {@link #recalculateDeferredBatch()}).
+   */
+  @Nullable private RangeMarker          myDeferredBelow;
+  @Nullable private RangeMarker          myDeferredAbove;
+  private boolean                        myDeferredBatchScheduled;
   @Nonnull
   private final Rectangle                myAvailableArea = new Rectangle(); // mutable
 
@@ -131,6 +141,7 @@ public class SoftWrapApplianceManager implements Dumpable {
 
   public void reset() {
     myIsDirty = true;
+    cancelDeferredRecalculation();
     for (SoftWrapAwareDocumentParsingListener listener : myListeners) {
       listener.reset();
     }
@@ -138,6 +149,7 @@ public class SoftWrapApplianceManager implements Dumpable {
 
   public void release() {
     myLineWrapPositionStrategy = null;
+    cancelDeferredRecalculation();
   }
 
   public void recalculate(IncrementalCacheUpdateEvent e) {
@@ -205,13 +217,118 @@ public class SoftWrapApplianceManager implements Dumpable {
     }
     myIsDirty = false;
 
-    recalculateSoftWraps(new IncrementalCacheUpdateEvent(myEditor.getDocument()));
+    if (!recalculateVisiblePartFirst()) {
+      recalculateSoftWraps(new IncrementalCacheUpdateEvent(myEditor.getDocument()));
+    }
 
     onRecalculationEnd();
 
     return true;
   }
 
+  /**
+   * Complete recalculation of a large document freezes UI, so only the lines around the visible area are processed here,
+   * the rest of the document is processed later, in batches.
+   *
+   * @return    <code>true</code> if the recalculation was split; <code>false</code> if the whole document is to be processed at once
+   */
+  private boolean recalculateVisiblePartFirst() {
+    Document document = myEditor.getDocument();
+    int lineCount = document.getLineCount();
+    if (ApplicationManager.getApplication().isUnitTestMode() || lineCount < Registry.intValue("editor.soft.wrap.deferred.min.lines")) {
+      return false;
+    }
+    Rectangle visibleArea = myEditor.getScrollingModel().getVisibleArea();
+    int visibleLines = Math.max(1, visibleArea.height / myEditor.getLineHeight());
+    // soft wraps may be missing at the moment, so the visible lines are estimated with a margin
+    int topLine = myEditor.xyToLogicalPosition(new Point(0, visibleArea.y)).line;
+    int startLine = Math.max(0, Math.min(topLine, lineCount - 1) - visibleLines);
+    int endLine = Math.min(lineCount - 1, topLine + visibleLines * 2);
+    int startOffset = document.getLineStartOffset(startLine);
+    int endOffset = document.getLineEndOffset(endLine);
+
+    recalculateSoftWraps(new IncrementalCacheUpdateEvent(startOffset, endOffset, myEditor));
+
+    if (endOffset < document.getTextLength()) {
+      myDeferredBelow = document.createRangeMarker(endOffset, document.getTextLength());
+    }
+    if (startOffset > 0) {
+      myDeferredAbove = document.createRangeMarker(0, startOffset);
+    }
+    scheduleDeferredBatch();
+    return true;
+  }
+
+  private void scheduleDeferredBatch() {
+    if (!myDeferredBatchScheduled && (myDeferredBelow != null || myDeferredAbove != null)) {
+      myDeferredBatchScheduled = true;
+      SwingUtilities.invokeLater(this::recalculateDeferredBatch);
+    }
+  }
+
+  private void recalculateDeferredBatch() {
+    myDeferredBatchScheduled = false;
+    if (myEditor.isDisposed() || myIsDirty || myVisibleAreaWidth <= 0) {
+      cancelDeferredRecalculation();
+      return;
+    }
+    if (myInProgress) {
+      scheduleDeferredBatch();
+      return;
+    }
+    // lines below the visible area first, they don't shift the viewport
+    boolean below = myDeferredBelow != null;
+    RangeMarker marker = below ? myDeferredBelow : myDeferredAbove;
+    if (marker == null) return;
+    RangeMarker rest = null;
+    if (marker.isValid() && marker.getStartOffset() < marker.getEndOffset()) {
+      Document document = myEditor.getDocument();
+      int startOffset = marker.getStartOffset();
+      int endLine = Math.min(document.getLineNumber(startOffset) + Registry.intValue("editor.soft.wrap.deferred.batch.lines"),
+                             document.getLineNumber(marker.getEndOffset()));
+      int endOffset = Math.min(marker.getEndOffset(), document.getLineEndOffset(endLine));
+
+      int anchorOffset = myLastTopLeftCornerOffset;
+      int softWrapsBefore = getNumberOfSoftWrapsBefore(anchorOffset);
+      recalculateSoftWraps(new IncrementalCacheUpdateEvent(startOffset, endOffset, myEditor));
+      int softWrapsNow = getNumberOfSoftWrapsBefore(anchorOffset);
+      if (softWrapsNow != softWrapsBefore) {
+        // keep the same text at the top of the viewport
+        ScrollingModelEx scrollingModel = myEditor.getScrollingModel();
+        scrollingModel.disableAnimation();
+        try {
+          scrollingModel.scrollVertically(scrollingModel.getVerticalScrollOffset() + (softWrapsNow - softWrapsBefore) * myEditor.getLineHeight());
+        }
+        finally {
+          scrollingModel.enableAnimation();
+        }
+      }
+      if (endOffset < marker.getEndOffset()) {
+        rest = document.createRangeMarker(endOffset, marker.getEndOffset());
+      }
+      onRecalculationEnd();
+    }
+    marker.dispose();
+    if (below) {
+      myDeferredBelow = rest;
+    }
+    else {
+      myDeferredAbove = rest;
+    }
+    scheduleDeferredBatch();
+  }
+
+  private void cancelDeferredRecalculation() {
+    if (myDeferredBelow != null) {
+      myDeferredBelow.dispose();
+      myDeferredBelow = null;
+    }
+    if (myDeferredAbove != null) {
+      myDeferredAbove.dispose();
+      myDeferredAbove = null;
+    }
+  }
+
   private void onRecalculationEnd() {
     updateLastTopLeftCornerOffset();
     for (SoftWrapAwareDocumentParsingListener listener : myListeners) {
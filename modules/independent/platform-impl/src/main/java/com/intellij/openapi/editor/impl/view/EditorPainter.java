@@ -113,6 +113,17 @@ class EditorPainter implements TextDrawingCallback {
     paintCaret(g);
 
     paintComposedTextDecoration(g);
+
+    prefetchAroundVisibleArea(clip);
+  }
+
+  private void prefetchAroundVisibleArea(Rectangle clip) {
+    Rectangle visibleArea = myEditor.getScrollingModel().getVisibleArea();
+    // caret blinking and highlighter updates repaint just a line or two, they shouldn't move the prefetched range
+    if (visibleArea.isEmpty() || clip.y > visibleArea.y || clip.y + clip.height < visibleArea.y + visibleArea.height) return;
+    int startOffset = myView.visualLineToOffset(myView.yToVisualLine(visibleArea.y));
+    int endOffset = myView.visualLineToOffset(myView.yToVisualLine(visibleArea.y + visibleArea.height) + 1);
+    myView.getTextLayoutCache().prefetchAround(myDocument.getLineNumber(startOffset), myDocument.getLineNumber(endOffset));
   }
 
   private boolean paintPlaceholderText(Graphics2D g) {
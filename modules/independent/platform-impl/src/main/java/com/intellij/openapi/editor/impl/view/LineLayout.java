@@ -346,6 +346,20 @@ abstract class LineLayout {
     return new VisualOrderIterator(view, line, startX, startVisualColumn, startOffset, runs);
   }
 
+  /**
+   * Lays out all the text of the line in advance, so that subsequent painting uses the prepared layout.
+   */
+  void prepareLayout(@Nonnull EditorView view, int line) {
+    Document document = view.getEditor().getDocument();
+    CharSequence text = document.getImmutableCharSequence();
+    int lineStartOffset = document.getLineStartOffset(line);
+    for (BidiRun run : getRunsInLogicalOrder()) {
+      for (Chunk chunk : run.getChunks(text, lineStartOffset)) {
+        chunk.ensureLayout(view, run, line);
+      }
+    }
+  }
+
   abstract Stream<Chunk> getChunksInLogicalOrder();
 
   float getWidth() {
@@ -690,6 +704,11 @@ abstract class LineLayout {
     void clearCache() {
       fragments = null;
     }
+
+    // rough size of the laid out fragments (glyph codes and positions), used to keep the text layout cache within its memory budget
+    int getEstimatedMemoryUsage() {
+      return 64 + (endOffset - startOffset) * 32;
+    }
   }
 
   private static class SyntheticChunk extends Chunk {
@@ -20,13 +20,16 @@ import com.intellij.openapi.diagnostic.Attachment;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.editor.ex.FoldingModelEx;
 import com.intellij.openapi.editor.ex.PrioritizedDocumentListener;
 import com.intellij.openapi.editor.impl.EditorDocumentPriorities;
 import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.util.ui.update.Activatable;
 import com.intellij.util.ui.update.UiNotifyConnector;
 import javax.annotation.Nonnull;
 
+import javax.swing.*;
 import java.awt.*;
 import java.util.*;
 import java.util.List;
@@ -40,8 +43,14 @@ import java.util.List;
 class TextLayoutCache implements PrioritizedDocumentListener, Disposable {
   private static final Logger LOG = Logger.getInstance(TextLayoutCache.class);
 
-  private static final int MAX_CHUNKS_IN_ACTIVE_EDITOR = 1000;
   private static final int MAX_CHUNKS_IN_INACTIVE_EDITOR = 10;
+  private static final int MAX_PREFETCH_NANOS_PER_EVENT = 2_000_000;
+
+  // Laid out chunks of all editors, in access order. Their total size is kept within a memory budget shared by all editors,
+  // so a single editor with long lines can use more, and many split editors don't multiply the footprint.
+  // Like the rest of the editor view, it's accessed from EDT only.
+  private static final LinkedHashMap<LineLayout.Chunk, TextLayoutCache> ourLaidOutChunks = new LinkedHashMap<>(1000, 0.75f, true);
+  private static long ourLaidOutChunksMemory;
 
   private final EditorView myView;
   private final Document myDocument;
@@ -49,19 +58,12 @@ class TextLayoutCache implements PrioritizedDocumentListener, Disposable {
   private ArrayList<LineLayout> myLines = new ArrayList<>();
   private int myDocumentChangeOldEndLine;
 
-  @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
-  private LinkedHashMap<LineLayout.Chunk, Object> myLaidOutChunks =
-          new LinkedHashMap<LineLayout.Chunk, Object>(MAX_CHUNKS_IN_ACTIVE_EDITOR, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<LineLayout.Chunk, Object> eldest) {
-              if (size() > getChunkCacheSizeLimit()) {
-                if (LOG.isDebugEnabled()) LOG.debug("Clearing chunk for " + myView.getEditor().getVirtualFile());
-                eldest.getKey().clearCache();
-                return true;
-              }
-              return false;
-            }
-          };
+  // chunks of this editor, in access order
+  private LinkedHashMap<LineLayout.Chunk, Boolean> myLaidOutChunks = new LinkedHashMap<>(16, 0.75f, true);
+
+  private int myPrefetchStartLine;
+  private int myPrefetchEndLine = -1;
+  private boolean myPrefetchScheduled;
 
   TextLayoutCache(EditorView view) {
     myView = view;
@@ -102,6 +104,9 @@ class TextLayoutCache implements PrioritizedDocumentListener, Disposable {
 
   @Override
   public void dispose() {
+    for (LineLayout.Chunk chunk : myLaidOutChunks.keySet()) {
+      forgetChunk(chunk);
+    }
     myLines = null;
     myLaidOutChunks = null;
   }
@@ -170,31 +175,92 @@ class TextLayoutCache implements PrioritizedDocumentListener, Disposable {
     return layout != null && layout != myBidiNotRequiredMarker;
   }
 
-  private int getChunkCacheSizeLimit() {
-    return myView.getEditor().getContentComponent().isShowing() ? MAX_CHUNKS_IN_ACTIVE_EDITOR : MAX_CHUNKS_IN_INACTIVE_EDITOR;
-  }
-
   void onChunkAccess(LineLayout.Chunk chunk) {
-    myLaidOutChunks.put(chunk, null);
+    if (myLaidOutChunks.put(chunk, Boolean.TRUE) == null) {
+      ourLaidOutChunks.put(chunk, this);
+      ourLaidOutChunksMemory += chunk.getEstimatedMemoryUsage();
+      trimToMemoryBudget();
+    }
+    else {
+      ourLaidOutChunks.get(chunk); // update access order
+    }
   }
 
   private void removeChunksFromCache(LineLayout layout) {
-    layout.getChunksInLogicalOrder().forEach(myLaidOutChunks::remove);
+    layout.getChunksInLogicalOrder().forEach(chunk -> {
+      if (myLaidOutChunks.remove(chunk) != null) forgetChunk(chunk);
+    });
+  }
+
+  private static void forgetChunk(LineLayout.Chunk chunk) {
+    if (ourLaidOutChunks.remove(chunk) != null) {
+      ourLaidOutChunksMemory -= chunk.getEstimatedMemoryUsage();
+    }
+  }
+
+  private static void trimToMemoryBudget() {
+    long budget = Registry.intValue("editor.text.layout.cache.size.kb") * 1024L;
+    Iterator<Map.Entry<LineLayout.Chunk, TextLayoutCache>> it = ourLaidOutChunks.entrySet().iterator();
+    while (ourLaidOutChunksMemory > budget && ourLaidOutChunks.size() > 1) {
+      Map.Entry<LineLayout.Chunk, TextLayoutCache> eldest = it.next();
+      LineLayout.Chunk chunk = eldest.getKey();
+      TextLayoutCache owner = eldest.getValue();
+      if (LOG.isDebugEnabled()) LOG.debug("Clearing chunk for " + owner.myView.getEditor().getVirtualFile());
+      chunk.clearCache();
+      owner.myLaidOutChunks.remove(chunk);
+      ourLaidOutChunksMemory -= chunk.getEstimatedMemoryUsage();
+      it.remove();
+    }
   }
 
   private void trimChunkCache() {
-    int limit = getChunkCacheSizeLimit();
-    if (myLaidOutChunks.size() > limit) {
+    if (myLaidOutChunks.size() > MAX_CHUNKS_IN_INACTIVE_EDITOR) {
       Iterator<LineLayout.Chunk> it = myLaidOutChunks.keySet().iterator();
-      while (myLaidOutChunks.size() > limit) {
+      while (myLaidOutChunks.size() > MAX_CHUNKS_IN_INACTIVE_EDITOR) {
         LineLayout.Chunk chunk = it.next();
         if (LOG.isDebugEnabled()) LOG.debug("Clearing chunk for " + myView.getEditor().getVirtualFile());
         chunk.clearCache();
+        forgetChunk(chunk);
         it.remove();
       }
     }
   }
 
+  /**
+   * Schedules layout of the lines just above and below the given (visible) ones, so that scrolling finds the layout already prepared.
+   * It's performed in portions of at most {@link #MAX_PREFETCH_NANOS_PER_EVENT} each, every portion in a separate
+   * {@link SwingUtilities#invokeLater} event, so events queued in the meantime are delayed by no more than one portion.
+   */
+  void prefetchAround(int startLine, int endLine) {
+    if (!Registry.is("editor.text.layout.prefetch")) return;
+    int lineCount = endLine - startLine + 1;
+    myPrefetchStartLine = Math.max(0, startLine - lineCount);
+    myPrefetchEndLine = Math.min(myLines.size() - 1, endLine + lineCount);
+    if (!myPrefetchScheduled) {
+      myPrefetchScheduled = true;
+      SwingUtilities.invokeLater(this::prefetchLines);
+    }
+  }
+
+  private void prefetchLines() {
+    myPrefetchScheduled = false;
+    if (myLines == null || !myView.getEditor().getContentComponent().isShowing()) return;
+    long deadline = System.nanoTime() + MAX_PREFETCH_NANOS_PER_EVENT;
+    int endLine = Math.min(myPrefetchEndLine, myLines.size() - 1);
+    FoldingModelEx foldingModel = myView.getEditor().getFoldingModel();
+    for (int line = myPrefetchStartLine; line <= endLine; line++) {
+      if (foldingModel.isOffsetCollapsed(myDocument.getLineStartOffset(line))) continue;
+      getLineLayout(line).prepareLayout(myView, line);
+      if (System.nanoTime() > deadline) {
+        myPrefetchStartLine = line + 1;
+        myPrefetchScheduled = true;
+        SwingUtilities.invokeLater(this::prefetchLines);
+        return;
+      }
+    }
+    myPrefetchEndLine = -1;
+  }
+
   private void checkDisposed() {
     if (myLines == null) myView.getEditor().throwDisposalError("Editor is already disposed");
   }
@@ -104,9 +104,11 @@ public class ProgressManagerImpl extends CoreProgressManager implements Disposab
     Thread fake = new Thread("fake");
     try {
       threadsUnderCanceledIndicator.add(fake);
+      alwaysCheckCanceled = true;
       runnable.run();
     }
     finally {
+      alwaysCheckCanceled = false;
       threadsUnderCanceledIndicator.remove(fake);
     }
   }
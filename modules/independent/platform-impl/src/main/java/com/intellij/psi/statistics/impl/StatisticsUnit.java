@@ -17,17 +17,22 @@ package com.intellij.psi.statistics.impl;
 
 import com.intellij.psi.statistics.StatisticsManager;
 import com.intellij.util.ArrayUtil;
-import gnu.trove.THashMap;
 
 import java.io.*;
 import java.util.*;
 
 class StatisticsUnit {
   private static final int FORMAT_VERSION_NUMBER = 5;
+  /**
+   * Contexts not used for a long time are forgotten, so the statistics of a long-lived installation don't grow without limit.
+   * With 997 units ({@code StatisticsManagerImpl.UNIT_COUNT}) that's about half a million contexts in total.
+   */
+  static final int MAX_CONTEXTS = 500;
 
   private final int myNumber;
 
-  private final THashMap<String, LinkedList<String>> myDataMap = new THashMap<String, LinkedList<String>>();
+  // least recently incremented contexts first, the same order is kept on disk
+  private final LinkedHashMap<String, LinkedList<String>> myDataMap = new LinkedHashMap<String, LinkedList<String>>();
 
   public StatisticsUnit(int number) {
     myNumber = number;
@@ -53,14 +58,24 @@ class StatisticsUnit {
   }
 
   public void incData(String key1, String key2) {
-    LinkedList<String> list = myDataMap.get(key1);
+    LinkedList<String> list = myDataMap.remove(key1);
     if (list == null) {
-      myDataMap.put(key1, list = new LinkedList<String>());
+      list = new LinkedList<String>();
     }
+    myDataMap.put(key1, list);
     list.addFirst(key2);
     if (list.size() > StatisticsManager.OBLIVION_THRESHOLD) {
       list.removeLast();
     }
+    evictOldContexts();
+  }
+
+  private void evictOldContexts() {
+    Iterator<String> iterator = myDataMap.keySet().iterator();
+    while (myDataMap.size() > MAX_CONTEXTS && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
   }
 
   public String[] getKeys2(final String key1){
@@ -109,6 +124,7 @@ class StatisticsUnit {
       }
       myDataMap.put(context, list);
     }
+    evictOldContexts();
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.util.lang;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class JarLoaderTest extends TestCase {
+  private File myDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myDir = FileUtil.createTempDirectory("jarLoader", null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtil.delete(myDir);
+    super.tearDown();
+  }
+
+  public void testIndexIsReusedUntilJarChanges() throws Exception {
+    File indexDir = new File(myDir, "index");
+    File jar = createJar(new File(myDir, "lib.jar"), "a.txt");
+
+    assertTrue(buildData(jar, indexDir).getResourcePaths().contains("a.txt"));
+    File[] indices = listIndices(indexDir);
+    assertEquals(1, indices.length);
+    long indexLength = indices[0].length();
+
+    assertEquals(buildData(jar, null).getResourcePaths(), buildData(jar, indexDir).getResourcePaths());
+
+    createJar(jar, "longer-name.txt");
+    ClasspathCache.LoaderData data = buildData(jar, indexDir);
+    assertTrue(data.getResourcePaths().contains("longer-name.txt"));
+    assertFalse(data.getResourcePaths().contains("a.txt"));
+    indices = listIndices(indexDir);
+    assertEquals(1, indices.length);
+    assertTrue("the index hasn't been rewritten", indices[0].length() != indexLength);
+  }
+
+  public void testPruneDeletesIndicesOfRemovedJars() throws Exception {
+    File removedJar = createJar(new File(myDir, "removed.jar"), "a.txt");
+    File keptJar = createJar(new File(myDir, "kept.jar"), "b.txt");
+    File otherIndexDir = new File(myDir, "other");
+    buildData(removedJar, otherIndexDir);
+
+    // indices left by a previous start: the one of a jar which is gone since then, and a temp file of a crashed write
+    File indexDir = new File(myDir, "index");
+    File removedIndex = listIndices(otherIndexDir)[0];
+    FileUtil.copy(removedIndex, new File(indexDir, removedIndex.getName()));
+    File staleTemp = new File(indexDir, "removed.jar.123.index.tmp");
+    FileUtil.writeToFile(staleTemp, "partial");
+    assertTrue(staleTemp.setLastModified(System.currentTimeMillis() - 2 * 24 * 60 * 60 * 1000L));
+    FileUtil.delete(removedJar);
+
+    // the directory is pruned after the first index written to it
+    buildData(keptJar, indexDir);
+    assertFalse(new File(indexDir, removedIndex.getName()).exists());
+    assertFalse(staleTemp.exists());
+    File[] indices = listIndices(indexDir);
+    assertEquals(1, indices.length);
+    assertTrue(indices[0].getName().startsWith("kept.jar."));
+  }
+
+  private static ClasspathCache.LoaderData buildData(File jar, File indexDir) throws IOException {
+    return new JarLoader(jar.toURI().toURL(), false, 0, false, indexDir).buildData();
+  }
+
+  private static File createJar(File jar, String... entries) throws IOException {
+    ZipOutputStream output = new ZipOutputStream(new FileOutputStream(jar));
+    try {
+      for (String entry : entries) {
+        output.putNextEntry(new ZipEntry(entry));
+        output.write(entry.getBytes("UTF-8"));
+        output.closeEntry();
+      }
+    }
+    finally {
+      output.close();
+    }
+    return jar;
+  }
+
+  private static File[] listIndices(File indexDir) {
+    File[] files = indexDir.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return file.getName().endsWith(".index");
+      }
+    });
+    assertNotNull(files);
+    return files;
+  }
+}
@@ -23,7 +23,10 @@ import com.intellij.openapi.util.text.StringUtil;
 import junit.framework.TestCase;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class MessageBusTest extends TestCase {
   private MessageBus myBus;
@@ -42,6 +45,12 @@ public class MessageBusTest extends TestCase {
   private static final Topic<T1Listener> TOPIC1 = new Topic<T1Listener>("T1", T1Listener.class);
   private static final Topic<T2Listener> TOPIC2 = new Topic<T2Listener>("T2", T2Listener.class);
 
+  public interface IndexedListener {
+    void message(int index);
+  }
+
+  private static final Topic<IndexedListener> INDEXED_TOPIC = new Topic<IndexedListener>("indexed", IndexedListener.class);
+
   private class T1Handler implements T1Listener {
     private final String id;
 
@@ -197,6 +206,50 @@ public class MessageBusTest extends TestCase {
                  "C2T1Handler:t12");
   }
   
+  public void testAsyncSubscriptionReceivesMessagesInOrder() throws InterruptedException {
+    final int count = 1000;
+    final List<String> asyncLog = Collections.synchronizedList(new ArrayList<String>());
+    final CountDownLatch delivered = new CountDownLatch(count);
+    final Thread publisherThread = Thread.currentThread();
+    myBus.connect().subscribeAsync(INDEXED_TOPIC, new IndexedListener() {
+      @Override
+      public void message(int index) {
+        if (Thread.currentThread() == publisherThread) {
+          asyncLog.add("delivered on the publisher thread");
+        }
+        asyncLog.add(String.valueOf(index));
+        delivered.countDown();
+      }
+    });
+    myBus.connect().subscribe(INDEXED_TOPIC, new IndexedListener() {
+      @Override
+      public void message(int index) {
+        myLog.add("sync:" + index);
+      }
+    });
+
+    List<String> expected = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      myBus.syncPublisher(INDEXED_TOPIC).message(i);
+      expected.add(String.valueOf(i));
+    }
+
+    assertTrue(delivered.await(10, TimeUnit.SECONDS));
+    assertEquals(expected, new ArrayList<String>(asyncLog));
+    assertEquals(count, myLog.size());
+  }
+
+  public void testAsyncAndSyncSubscriptionToTheSameTopicConflict() {
+    MessageBusConnection connection = myBus.connect();
+    connection.subscribeAsync(TOPIC1, new T1Handler("async"));
+    try {
+      connection.subscribe(TOPIC1, new T1Handler("sync"));
+      fail("IllegalStateException expected");
+    }
+    catch (IllegalStateException ignored) {
+    }
+  }
+
   private void assertEvents(String... expected) {
     String joinExpected = StringUtil.join(expected, "\n");
     String joinActual = StringUtil.join(myLog, "\n");
@@ -311,6 +311,12 @@ public class PathManager {
     return new File(indexRoot);
   }
 
+  // entries of the platform and plugin jars, see UrlClassLoader.Builder#usePersistentClasspathIndexForJars
+  @Nonnull
+  public static File getClasspathIndexRoot() {
+    return new File(getSystemPath(), "classpath");
+  }
+
   @Nonnull
   public static String getLogPath() {
     if (ourLogPath != null) return ourLogPath;
@@ -178,7 +178,11 @@ public class MinusculeMatcher implements Matcher {
     int integral = 0; // -sum of matching-char-count * hump-index over all matched humps; favors longer fragments matching earlier words
     int humpIndex = 1;
     int nextHumpStart = 0;
-    for (TextRange range : fragments) {
+    int lastEnd = 0;
+    // walk the list directly: this runs for every matched name in goto and completion, iterators add up
+    for (FList<TextRange> tail = fragments; !tail.isEmpty(); tail = tail.getTail()) {
+      TextRange range = tail.getHead();
+      lastEnd = range.getEndOffset();
       for (int i = range.getStartOffset(); i < range.getEndOffset(); i++) {
         boolean isHumpStart = false;
         while (nextHumpStart <= i) {
@@ -212,7 +216,7 @@ public class MinusculeMatcher implements Matcher {
     int startIndex = first.getStartOffset();
     boolean afterSeparator = StringUtil.indexOfAny(name, myHardSeparators, 0, startIndex) >= 0;
     boolean wordStart = startIndex == 0 || isWordStart(name, startIndex) && !isWordStart(name, startIndex - 1);
-    boolean finalMatch = fragments.get(fragments.size() - 1).getEndOffset() == name.length();
+    boolean finalMatch = lastEnd == name.length();
 
     return (wordStart ? 1000 : 0) +
            integral * 10 +
@@ -228,6 +232,10 @@ public class MinusculeMatcher implements Matcher {
   }
 
   public static boolean isStartMatch(@Nonnull Iterable<TextRange> fragments) {
+    if (fragments instanceof FList) {
+      TextRange head = ((FList<TextRange>)fragments).getHead();
+      return head == null || head.getStartOffset() == 0;
+    }
     Iterator<TextRange> iterator = fragments.iterator();
     return !iterator.hasNext() || iterator.next().getStartOffset() == 0;
   }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2018 consulo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.util;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of durations with exponential buckets: [0,1), [1,2), [2,4) ... units, the last bucket is open-ended.
+ * {@link #appendTo} is the plain text export format used by the internal statistics dumps.
+ */
+public class ExponentialHistogram {
+  private final TimeUnit myUnit;
+  private final AtomicLongArray myBuckets;
+
+  public ExponentialHistogram(@Nonnull TimeUnit unit, int bucketCount) {
+    myUnit = unit;
+    myBuckets = new AtomicLongArray(bucketCount);
+  }
+
+  public void record(long nanos) {
+    myBuckets.incrementAndGet(bucket(myUnit.convert(nanos, TimeUnit.NANOSECONDS), myBuckets.length()));
+  }
+
+  static int bucket(long value, int bucketCount) {
+    if (value <= 0) return 0;
+    int bucket = 64 - Long.numberOfLeadingZeros(value); // 1 -> 1, 2..3 -> 2, 4..7 -> 3 ...
+    return Math.min(bucket, bucketCount - 1);
+  }
+
+  // lower bound of the bucket, in units
+  public static long bucketStart(int bucket) {
+    return bucket == 0 ? 0 : 1L << (bucket - 1);
+  }
+
+  @Nonnull
+  public long[] toArray() {
+    long[] result = new long[myBuckets.length()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = myBuckets.get(i);
+    }
+    return result;
+  }
+
+  public void clear() {
+    for (int i = 0; i < myBuckets.length(); i++) {
+      myBuckets.set(i, 0);
+    }
+  }
+
+  /**
+   * Appends a line like {@code "title: >=0ms:12 >=4ms:3\n"}, listing the non-empty buckets only.
+   */
+  public void appendTo(@Nonnull StringBuilder result, @Nonnull String title) {
+    long[] buckets = toArray();
+    result.append(title).append(':');
+    for (int i = 0; i < buckets.length; i++) {
+      if (buckets[i] != 0) {
+        result.append(" >=").append(bucketStart(i)).append(unitSuffix(myUnit)).append(':').append(buckets[i]);
+      }
+    }
+    result.append('\n');
+  }
+
+  @Nonnull
+  private static String unitSuffix(@Nonnull TimeUnit unit) {
+    switch (unit) {
+      case NANOSECONDS:
+        return "ns";
+      case MICROSECONDS:
+        return "us";
+      case MILLISECONDS:
+        return "ms";
+      case SECONDS:
+        return "s";
+      default:
+        return unit.name().toLowerCase();
+    }
+  }
+}
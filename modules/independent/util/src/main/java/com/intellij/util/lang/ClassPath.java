@@ -56,6 +56,8 @@ public class ClassPath {
   private final boolean myPreloadJarContents;
   private final boolean myCanHavePersistentIndex;
   @Nullable
+  private final File myJarIndexDir;
+  @Nullable
   private final CachePoolImpl myCachePool;
   @Nullable
   private final UrlClassLoader.CachingCondition myCachingCondition;
@@ -68,6 +70,18 @@ public class ClassPath {
                    boolean canHavePersistentIndex,
                    @Nullable CachePoolImpl cachePool,
                    @Nullable UrlClassLoader.CachingCondition cachingCondition) {
+    this(urls, canLockJars, canUseCache, acceptUnescapedUrls, preloadJarContents, canHavePersistentIndex, null, cachePool, cachingCondition);
+  }
+
+  public ClassPath(List<URL> urls,
+                   boolean canLockJars,
+                   boolean canUseCache,
+                   boolean acceptUnescapedUrls,
+                   boolean preloadJarContents,
+                   boolean canHavePersistentIndex,
+                   @Nullable File jarIndexDir,
+                   @Nullable CachePoolImpl cachePool,
+                   @Nullable UrlClassLoader.CachingCondition cachingCondition) {
     myCanLockJars = canLockJars;
     myCanUseCache = canUseCache;
     myAcceptUnescapedUrls = acceptUnescapedUrls;
@@ -75,6 +89,7 @@ public class ClassPath {
     myCachePool = cachePool;
     myCachingCondition = cachingCondition;
     myCanHavePersistentIndex = canHavePersistentIndex;
+    myJarIndexDir = jarIndexDir;
     push(urls);
   }
 
@@ -207,7 +222,7 @@ public class ClassPath {
       return new FileLoader(url, index, myCanHavePersistentIndex);
     }
     else if (file.isFile()) {
-      Loader loader = new JarLoader(url, myCanLockJars, index, myPreloadJarContents);
+      Loader loader = new JarLoader(url, myCanLockJars, index, myPreloadJarContents, myJarIndexDir);
       if (processRecursively) {
         String[] referencedJars = loadManifestClasspath(file);
         if (referencedJars != null) {
@@ -22,9 +22,7 @@ import com.intellij.reference.SoftReference;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.net.URL;
 import java.util.*;
 import java.util.jar.Attributes;
@@ -49,12 +47,18 @@ class JarLoader extends Loader {
   private SoftReference<JarMemoryLoader> myMemoryLoader;
   private volatile SoftReference<ZipFile> myZipFileSoftReference; // Used only when myCanLockJar==true
   private final Map<Resource.Attribute, String> myAttributes;
+  @Nullable private final File myIndexDir;
 
-  JarLoader(URL url, @SuppressWarnings("unused") boolean canLockJar, int index, boolean preloadJarContents) throws IOException {
+  JarLoader(URL url,
+            @SuppressWarnings("unused") boolean canLockJar,
+            int index,
+            boolean preloadJarContents,
+            @Nullable File indexDir) throws IOException {
     super(new URL("jar", "", -1, url + "!/"), index);
 
     myCanonicalFile = new File(FileUtil.unquote(url.getFile())).getCanonicalFile();
     myCanLockJar = canLockJar;
+    myIndexDir = indexDir;
 
     ZipFile zipFile = getZipFile(); // IOException from opening is propagated to caller if zip file isn't valid,
     try {
@@ -100,6 +104,9 @@ class JarLoader extends Loader {
   @Nonnull
   @Override
   public ClasspathCache.LoaderData buildData() throws IOException {
+    ClasspathCache.LoaderData fromIndex = tryReadFromIndex();
+    if (fromIndex != null) return fromIndex;
+
     ZipFile zipFile = getZipFile();
     try {
       ClasspathCache.LoaderData loaderData = new ClasspathCache.LoaderData();
@@ -110,6 +117,7 @@ class JarLoader extends Loader {
         loaderData.addResourceEntry(name);
         loaderData.addNameEntry(name);
       }
+      trySaveToIndex(loaderData);
       return loaderData;
     }
     finally {
@@ -117,6 +125,153 @@ class JarLoader extends Loader {
     }
   }
 
+  private static final int INDEX_VERSION = 1;
+
+  // the entries saved by a previous start, valid while the jar has the same path, length and modification time
+  @Nullable
+  private ClasspathCache.LoaderData tryReadFromIndex() {
+    if (myIndexDir == null) return null;
+    File index = getIndexFile(myIndexDir);
+    if (!index.isFile()) return null;
+
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(index)));
+      if (input.readInt() != INDEX_VERSION ||
+          !myCanonicalFile.getPath().equals(input.readUTF()) ||
+          input.readLong() != myCanonicalFile.length() ||
+          input.readLong() != myCanonicalFile.lastModified()) {
+        return null;
+      }
+      ClasspathCache.LoaderData loaderData = new ClasspathCache.LoaderData();
+      readList(input, loaderData.getResourcePaths());
+      readList(input, loaderData.getNames());
+      return loaderData;
+    }
+    catch (IOException e) {
+      return null; // the jar is scanned and the index is written anew
+    }
+    finally {
+      if (input != null) {
+        try {
+          input.close();
+        }
+        catch (IOException ignore) { }
+      }
+    }
+  }
+
+  private static void readList(DataInputStream input, List<String> result) throws IOException {
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      result.add(input.readUTF());
+    }
+  }
+
+  private void trySaveToIndex(ClasspathCache.LoaderData data) {
+    if (myIndexDir == null) return;
+    File index = getIndexFile(myIndexDir);
+    // another instance may be starting from the same installation, so never let it read (or rename) a partially written file
+    File temp = null;
+    DataOutputStream output = null;
+    try {
+      if (!myIndexDir.isDirectory() && !myIndexDir.mkdirs()) return;
+      temp = FileUtil.createTempFile(myIndexDir, myCanonicalFile.getName() + ".", TEMP_SUFFIX, true, false);
+      output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      output.writeInt(INDEX_VERSION);
+      output.writeUTF(myCanonicalFile.getPath());
+      output.writeLong(myCanonicalFile.length());
+      output.writeLong(myCanonicalFile.lastModified());
+      writeList(output, data.getResourcePaths());
+      writeList(output, data.getNames());
+      output.close();
+      output = null;
+      FileUtil.rename(temp, index);
+    }
+    catch (IOException e) {
+      if (temp != null) {
+        //noinspection ResultOfMethodCallIgnored
+        temp.delete();
+      }
+    }
+    finally {
+      if (output != null) {
+        try {
+          output.close();
+        }
+        catch (IOException ignore) { }
+        //noinspection ResultOfMethodCallIgnored
+        temp.delete();
+      }
+    }
+    pruneIndexDir(myIndexDir);
+  }
+
+  private static final String INDEX_SUFFIX = ".index";
+  private static final String TEMP_SUFFIX = ".index.tmp";
+  private static final long STALE_TEMP_AGE_MS = 24 * 60 * 60 * 1000L;
+  private static final Set<String> ourPrunedIndexDirs = new HashSet<String>(); // guarded by itself
+
+  // Jars are renamed on plugin updates and removed with plugins, so their indices are deleted once their jar is gone.
+  // This is done at most once per directory and only when some index had to be (re)written, so usual starts don't pay for it.
+  private static void pruneIndexDir(@Nonnull File indexDir) {
+    synchronized (ourPrunedIndexDirs) {
+      if (!ourPrunedIndexDirs.add(indexDir.getPath())) return;
+    }
+    File[] files = indexDir.listFiles();
+    if (files == null) return;
+    long now = System.currentTimeMillis();
+    for (File file : files) {
+      String name = file.getName();
+      boolean stale;
+      if (name.endsWith(TEMP_SUFFIX)) {
+        // left by a crashed start, the ones being written right now by another instance are recent
+        stale = now - file.lastModified() > STALE_TEMP_AGE_MS;
+      }
+      else if (name.endsWith(INDEX_SUFFIX)) {
+        stale = !isIndexOfExistingJar(file);
+      }
+      else {
+        continue;
+      }
+      if (stale) {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+      }
+    }
+  }
+
+  private static boolean isIndexOfExistingJar(@Nonnull File index) {
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(index)));
+      return input.readInt() == INDEX_VERSION && new File(input.readUTF()).isFile();
+    }
+    catch (IOException e) {
+      return false;
+    }
+    finally {
+      if (input != null) {
+        try {
+          input.close();
+        }
+        catch (IOException ignore) { }
+      }
+    }
+  }
+
+  private static void writeList(DataOutputStream output, List<String> list) throws IOException {
+    output.writeInt(list.size());
+    for (String s : list) {
+      output.writeUTF(s);
+    }
+  }
+
+  @Nonnull
+  private File getIndexFile(@Nonnull File indexDir) {
+    return new File(indexDir, myCanonicalFile.getName() + "." + Integer.toHexString(myCanonicalFile.getPath().hashCode()) + INDEX_SUFFIX);
+  }
+
   @Override
   @Nullable
   Resource getResource(String name, boolean flag) {
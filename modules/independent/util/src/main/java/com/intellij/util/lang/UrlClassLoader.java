@@ -89,6 +89,7 @@ public class UrlClassLoader extends ClassLoader {
     private boolean myLockJars;
     private boolean myUseCache;
     private boolean myUsePersistentClasspathIndex;
+    @Nullable private File myJarIndexDir;
     private boolean myAcceptUnescaped;
     private boolean myPreload = true;
     private boolean myAllowBootstrapResources;
@@ -117,6 +118,13 @@ public class UrlClassLoader extends ClassLoader {
       return this;
     }
 
+    // Instruction for JarLoader to save the list of jar entries under the given directory and read it on the next start instead of
+    // enumerating the jar. The saved list is used only while the jar has the same path, length and modification time.
+    public Builder usePersistentClasspathIndexForJars(@Nonnull File indexDir) {
+      myJarIndexDir = ourClassPathIndexEnabled ? indexDir : null;
+      return this;
+    }
+
     /**
      * Requests the class loader being built to use cache and, if possible, retrieve and store the cached data from a special cache pool
      * that can be shared between several loaders.
@@ -177,7 +185,7 @@ public class UrlClassLoader extends ClassLoader {
   @Nonnull
   protected final ClassPath createClassPath(@Nonnull Builder builder) {
     return new ClassPath(myURLs, builder.myLockJars, builder.myUseCache, builder.myAcceptUnescaped, builder.myPreload,
-                         builder.myUsePersistentClasspathIndex, builder.myCachePool, builder.myCachingCondition);
+                         builder.myUsePersistentClasspathIndex, builder.myJarIndexDir, builder.myCachePool, builder.myCachingCondition);
   }
 
   public static URL internProtocol(@Nonnull URL url) {
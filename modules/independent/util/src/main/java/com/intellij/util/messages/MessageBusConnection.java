@@ -53,6 +53,22 @@ public interface MessageBusConnection extends Disposable {
    */
   <L> void subscribe(@Nonnull Topic<L> topic) throws IllegalStateException;
 
+  /**
+   * Subscribes given handler to the target endpoint within the current connection, messages are delivered to it asynchronously
+   * on a pooled thread instead of the publisher's one. Messages published while the previous ones are still being delivered
+   * are handed to the handler in a single batch, in publication order.
+   * <p/>
+   * Use it for high-rate topics whose handlers only record the event (e.g. to invalidate a cache) and don't need to run
+   * before the publisher continues. The handler must be thread-safe and must not rely on the read action
+   * or the event dispatch thread of the publisher.
+   *
+   * @param topic    target endpoint
+   * @param handler  target handler to use for incoming messages
+   * @param <L>      interface for working with the target topic
+   * @throws IllegalStateException    if there is already registered handler for the target endpoint within the current connection
+   */
+  <L> void subscribeAsync(@Nonnull Topic<L> topic, @Nonnull L handler) throws IllegalStateException;
+
   /**
    * Allows to specify default handler to use during {@link #subscribe(Topic) anonymous subscriptions}.
    *
@@ -23,6 +23,7 @@ import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.util.SmartFMap;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.intellij.util.messages.MessageBusConnection;
 import com.intellij.util.messages.MessageHandler;
 import com.intellij.util.messages.Topic;
@@ -31,6 +32,9 @@ import javax.annotation.Nonnull;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MessageBusConnectionImpl implements MessageBusConnection {
   private static final Logger LOG = Logger.getInstance("#com.intellij.util.messages.impl.MessageBusConnectionImpl");
@@ -42,17 +46,41 @@ public class MessageBusConnectionImpl implements MessageBusConnection {
   private MessageHandler myDefaultHandler;
   private volatile SmartFMap<Topic, Object> mySubscriptions = SmartFMap.emptyMap();
 
+  private volatile SmartFMap<Topic, Object> myAsyncSubscriptions = SmartFMap.emptyMap();
+  private final Queue<Message> myAsyncMessages = new ConcurrentLinkedQueue<Message>();
+  private final AtomicBoolean myAsyncDeliveryScheduled = new AtomicBoolean();
+  private volatile boolean myDisposed;
+
+  private static class AsyncDelivery {
+    // all async subscribers share it, one connection gets at most one thread at a time to keep its messages ordered
+    private static final ExecutorService EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("MessageBus async delivery", 2);
+  }
+
   public MessageBusConnectionImpl(@Nonnull MessageBusImpl bus) {
     myBus = bus;
   }
 
   @Override
   public <L> void subscribe(@Nonnull Topic<L> topic, @Nonnull L handler) throws IllegalStateException {
+    addSubscription(topic, handler, false);
+  }
+
+  @Override
+  public <L> void subscribeAsync(@Nonnull Topic<L> topic, @Nonnull L handler) throws IllegalStateException {
+    addSubscription(topic, handler, true);
+  }
+
+  private void addSubscription(@Nonnull Topic topic, @Nonnull Object handler, boolean async) {
     synchronized (myPendingMessages) {
-      if (mySubscriptions.get(topic) != null) {
+      if (mySubscriptions.get(topic) != null || myAsyncSubscriptions.get(topic) != null) {
         throw new IllegalStateException("Subscription to " + topic + " already exists");
       }
-      mySubscriptions = mySubscriptions.plus(topic, handler);
+      if (async) {
+        myAsyncSubscriptions = myAsyncSubscriptions.plus(topic, handler);
+      }
+      else {
+        mySubscriptions = mySubscriptions.plus(topic, handler);
+      }
     }
     myBus.notifyOnSubscription(this, topic);
   }
@@ -79,6 +107,8 @@ public class MessageBusConnectionImpl implements MessageBusConnection {
 
   @Override
   public void dispose() {
+    myDisposed = true;
+    myAsyncMessages.clear();
     Queue<Message> jobs = myPendingMessages.get();
     myPendingMessages.remove();
     myBus.notifyConnectionTerminated(this);
@@ -104,9 +134,10 @@ public class MessageBusConnectionImpl implements MessageBusConnection {
     final Message messageOnLocalQueue = myPendingMessages.get().poll();
     assert messageOnLocalQueue == message;
 
-    final Topic topic = message.getTopic();
-    final Object handler = mySubscriptions.get(topic);
+    invokeListener(mySubscriptions.get(message.getTopic()), message);
+  }
 
+  private void invokeListener(Object handler, @Nonnull Message message) {
     try {
       Method listenerMethod = message.getListenerMethod();
 
@@ -138,6 +169,46 @@ public class MessageBusConnectionImpl implements MessageBusConnection {
     myPendingMessages.get().offer(message);
   }
 
+  boolean isAsyncSubscription(@Nonnull Topic topic) {
+    return myAsyncSubscriptions.get(topic) != null;
+  }
+
+  void scheduleAsyncDelivery(@Nonnull Message message) {
+    if (myDisposed) return;
+    myAsyncMessages.offer(message);
+    if (myAsyncDeliveryScheduled.compareAndSet(false, true)) {
+      AsyncDelivery.EXECUTOR.execute(new Runnable() {
+        @Override
+        public void run() {
+          deliverAsyncMessages();
+        }
+      });
+    }
+  }
+
+  private void deliverAsyncMessages() {
+    do {
+      try {
+        Message message;
+        while (!myDisposed && (message = myAsyncMessages.poll()) != null) {
+          Object handler = myAsyncSubscriptions.get(message.getTopic());
+          if (handler == null) continue;
+          try {
+            invokeListener(handler, message);
+          }
+          catch (ProcessCanceledException ignored) {
+            // nobody to propagate it to, the rest of the batch is still delivered
+          }
+        }
+      }
+      finally {
+        myAsyncDeliveryScheduled.set(false);
+      }
+      // a message may have been offered after the queue was found empty but before the flag was reset
+    }
+    while (!myDisposed && !myAsyncMessages.isEmpty() && myAsyncDeliveryScheduled.compareAndSet(false, true));
+  }
+
   boolean containsMessage(@Nonnull Topic topic) {
     for (Message message : myPendingMessages.get()) {
       if (message.getTopic() == topic) {
@@ -148,7 +219,7 @@ public class MessageBusConnectionImpl implements MessageBusConnection {
   }
 
   public String toString() {
-    return mySubscriptions.toString();
+    return myAsyncSubscriptions.isEmpty() ? mySubscriptions.toString() : mySubscriptions + "; async: " + myAsyncSubscriptions;
   }
 
   @Nonnull
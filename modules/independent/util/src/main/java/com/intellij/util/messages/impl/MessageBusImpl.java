@@ -67,13 +67,15 @@ public class MessageBusImpl implements MessageBus {
   private final ConcurrentMap<Topic, List<MessageBusConnectionImpl>> mySubscribers = ContainerUtil.newConcurrentMap();
 
   /**
-   * Caches subscribers for this bus and its children or parent, depending on the topic's broadcast policy
+   * Caches subscribers for this bus and its children or parent, depending on the topic's broadcast policy.
+   * Arrays rather than lists: they are iterated on every published message and never modified, the cache is dropped instead.
    */
-  private final ConcurrentMap<Topic, List<MessageBusConnectionImpl>> mySubscriberCache = ContainerUtil.newConcurrentMap();
+  private final ConcurrentMap<Topic, MessageBusConnectionImpl[]> mySubscriberCache = ContainerUtil.newConcurrentMap();
   private final Deque<MessageBusImpl> myChildBuses = new LinkedBlockingDeque<MessageBusImpl>();
   private final ConcurrentMap<List<Integer>, Boolean> myChildOrders = ContainerUtil.newConcurrentMap();
 
   private static final Object NA = new Object();
+  private static final MessageBusConnectionImpl[] NO_SUBSCRIBERS = new MessageBusConnectionImpl[0];
   private MessageBusImpl myParentBus;
 
   //is used for debugging purposes
@@ -322,22 +324,26 @@ public class MessageBusImpl implements MessageBus {
 
   private void postMessage(Message message) {
     checkNotDisposed();
-    List<MessageBusConnectionImpl> topicSubscribers = getTopicSubscribers(message.getTopic());
-    if (!topicSubscribers.isEmpty()) {
-      for (MessageBusConnectionImpl subscriber : topicSubscribers) {
-        subscriber.getBus().myMessageQueue.get().offer(new DeliveryJob(subscriber, message));
-        subscriber.getBus().notifyPendingJobChange(1);
-        subscriber.scheduleMessageDelivery(message);
+    Topic topic = message.getTopic();
+    for (MessageBusConnectionImpl subscriber : getTopicSubscribers(topic)) {
+      if (subscriber.isAsyncSubscription(topic)) {
+        subscriber.scheduleAsyncDelivery(message);
+        continue;
       }
+      MessageBusImpl bus = subscriber.getBus();
+      bus.myMessageQueue.get().offer(new DeliveryJob(subscriber, message));
+      bus.notifyPendingJobChange(1);
+      subscriber.scheduleMessageDelivery(message);
     }
   }
 
   @Nonnull
-  private List<MessageBusConnectionImpl> getTopicSubscribers(Topic topic) {
-    List<MessageBusConnectionImpl> topicSubscribers = mySubscriberCache.get(topic);
+  private MessageBusConnectionImpl[] getTopicSubscribers(Topic topic) {
+    MessageBusConnectionImpl[] topicSubscribers = mySubscriberCache.get(topic);
     if (topicSubscribers == null) {
-      topicSubscribers = new SmartList<MessageBusConnectionImpl>();
-      calcSubscribers(topic, topicSubscribers);
+      List<MessageBusConnectionImpl> result = new SmartList<MessageBusConnectionImpl>();
+      calcSubscribers(topic, result);
+      topicSubscribers = result.isEmpty() ? NO_SUBSCRIBERS : result.toArray(new MessageBusConnectionImpl[result.size()]);
       mySubscriberCache.put(topic, topicSubscribers);
     }
     return topicSubscribers;
@@ -372,17 +378,13 @@ public class MessageBusImpl implements MessageBus {
 
   private void pumpMessages() {
     checkNotDisposed();
-    if (myParentBus != null) {
-      LOG.assertTrue(myParentBus.myChildBuses.contains(this));
-      myParentBus.pumpMessages();
-    }
-    else {
-      Map<MessageBusImpl, Integer> map = asRoot().myWaitingBuses.get();
-      if (map != null) {
-        Set<MessageBusImpl> buses = map.keySet();
-        if (!buses.isEmpty()) {
-          pumpWaitingBuses(map, new ArrayList<MessageBusImpl>(buses));
-        }
+    // the pending jobs of the whole hierarchy are counted in the root, no need to visit (and check) every bus on the way up:
+    // getRootBus() fails on a bus detached from a disposed parent anyway
+    Map<MessageBusImpl, Integer> map = getRootBus().myWaitingBuses.get();
+    if (map != null) {
+      Set<MessageBusImpl> buses = map.keySet();
+      if (!buses.isEmpty()) {
+        pumpWaitingBuses(map, new ArrayList<MessageBusImpl>(buses));
       }
     }
   }